@@ -0,0 +1,69 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares one searchIntervals() batch against the same queries run one searchInterval() call at
+ * a time, and against searchIntervalsParallel() on the common pool. Run with a warm JIT; the
+ * first rounds are thrown away. Build with "ant build-bench".
+ */
+class BatchSearchBenchmark {
+	static long hits;
+
+	public static void main(String[] args) {
+		int treeSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		Random rand = new Random(424242);
+
+		IntervalTree<Long> tree = new IntervalTree<Long>(LongInterval.comparator);
+		while (tree.size() < treeSize) {
+			long low = rand.nextInt(treeSize * 10);
+			tree.add(new LongInterval(low, low + rand.nextInt(100)));
+		}
+		List<LongInterval> queries = new ArrayList<LongInterval>();
+		for (int i = 0; i < batchSize; i++) {
+			long low = rand.nextInt(treeSize * 10);
+			queries.add(new LongInterval(low, low + rand.nextInt(1000)));
+		}
+
+		for (int round = 0; round < 10; round++) {
+			hits = 0;
+			long start = System.nanoTime();
+			for (LongInterval query : queries) {
+				tree.searchInterval(query, interval -> hits++);
+			}
+			long single = System.nanoTime() - start;
+			long singleHits = hits;
+
+			hits = 0;
+			start = System.nanoTime();
+			tree.searchIntervals(queries, (index, interval) -> hits++);
+			long batched = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			tree.searchIntervalsParallel(queries);
+			long parallel = System.nanoTime() - start;
+
+			System.out.println("round " + round + ": per query " + single / 1000 + "us, batched "
+					+ batched / 1000 + "us, speedup " + String.format("%.2f", (double) single / batched)
+					+ "x (" + singleHits + "/" + hits + " hits), parallel " + parallel / 1000 + "us");
+		}
+	}
+}
@@ -0,0 +1,760 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+/**
+ * The AVL interval tree over primitive long ranges shared by LongIntervalTree, ArrayIntervalTree
+ * and OffHeapIntervalTree. Nodes are int handles; subclasses only decide where a handle's slot
+ * (links, balance factor, low, high and max) is stored. Handles are handed out from 0 up, and
+ * removed ones are kept on a free list (threaded through left) and reused by add().
+ * Intervals are ordered by low, then by high.
+ */
+abstract class AbstractLongIntervalTree {
+	static final int NIL = -1;
+
+	private int root = NIL;
+	private int count;
+	private int next;             // High water mark of handed out handles
+	private int freeList = NIL;   // Handles released by remove(), chained through left
+	private transient int modCount = 0; // Modification count to the tree, monotonically increasing
+
+	// Slot storage
+	abstract int left(int node);
+
+	abstract void left(int node, int value);
+
+	abstract int right(int node);
+
+	abstract void right(int node, int value);
+
+	abstract int parent(int node);
+
+	abstract void parent(int node, int value);
+
+	abstract int balance(int node);
+
+	abstract void balance(int node, int value);
+
+	abstract long low(int node);
+
+	abstract long high(int node);
+
+	abstract long max(int node);
+
+	abstract void max(int node, long value);
+
+	/**
+	 * Fill in a fresh slot: [low, high] with max high, no children and balance 0.
+	 */
+	abstract void init(int node, long low, long high, int parent);
+
+	/**
+	 * Number of handles there is room for
+	 */
+	abstract int capacity();
+
+	/**
+	 * Make room for at least one more handle
+	 */
+	abstract void grow();
+
+	/**
+	 * Storage that can be closed checks it here
+	 */
+	void ensureOpen() {
+	}
+
+	/**
+	 * Hand out a fresh node for [lo, hi]; may grow the storage.
+	 */
+	private int allocate(long lo, long hi, int parentNode) {
+		int node;
+		if (freeList != NIL) {
+			node = freeList;
+			freeList = left(node);
+		} else {
+			if (next == capacity()) {
+				grow();
+			}
+			node = next++;
+		}
+		init(node, lo, hi, parentNode);
+		return node;
+	}
+
+	private void release(int node) {
+		right(node, NIL);
+		parent(node, NIL);
+		balance(node, 0);
+		left(node, freeList);
+		freeList = node;
+	}
+
+	/**
+	 * Add the interval [lo, hi] to the tree.
+	 */
+	public boolean add(long lo, long hi) {
+		ensureOpen();
+		if (root == NIL) {
+			root = allocate(lo, hi, NIL);
+			++count;
+			++modCount;
+			return true;
+		}
+
+		int x = root;
+		int node;
+		while (true) {
+			// We only update if the new element is larger than the existing ones
+			if (hi > max(x)) {
+				max(x, hi);
+			}
+
+			int compare = compare(lo, hi, x);
+			if (0 == compare) {
+				return false;
+			} else if (compare < 0) {
+				if (left(x) == NIL) {
+					node = allocate(lo, hi, x); // NOTE: may grow; don't fold into left(x, ...)
+					left(x, node);
+					balance(x, balance(x) - 1);
+					break;
+				}
+				x = left(x);
+			} else {
+				if (right(x) == NIL) {
+					node = allocate(lo, hi, x);
+					right(x, node);
+					balance(x, balance(x) + 1);
+					break;
+				}
+				x = right(x);
+			}
+		}
+
+		++modCount;
+
+		/*
+			AVL balancing act; see IntervalTree.add() for the long version.
+			Left additions == -1, Right additions == +1
+			Single rotation when Parent & Child share signed balance,
+			Double rotation when sign differs!
+		*/
+		node = x;
+		while (balance(node) != 0 && parent(node) != NIL) {
+			int p = parent(node);
+			if (left(p) == node) {
+				balance(p, balance(p) - 1);
+			} else {
+				balance(p, balance(p) + 1);
+			}
+
+			node = p;
+			if (balance(node) == 2) {
+				if (balance(right(node)) == 1) {
+					rotateLeft(node);
+					balance(node, 0);
+					balance(parent(node), 0);
+					node = parent(node);
+
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+				} else {
+					rotateRightLeft(node);
+					node = parent(node); // Update to new parent (old grandchild)
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					fixDoubleRotation(node);
+				}
+				break; // out of loop, we're balanced
+			} else if (balance(node) == -2) {
+				if (balance(left(node)) == -1) {
+					rotateRight(node);
+					balance(node, 0);
+					balance(parent(node), 0);
+					node = parent(node);
+
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+				} else {
+					rotateLeftRight(node);
+					node = parent(node);
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					fixDoubleRotation(node);
+				}
+				break; // out of loop, we're balanced
+			}
+		} // end of while(balancing)
+		count++;
+		return true;
+	}
+
+	/**
+	 * Balance factors after a double rotation, keyed off the old grand-child (now on top).
+	 */
+	private void fixDoubleRotation(int node) {
+		if (balance(node) == 1) {
+			balance(right(node), 0);
+			balance(left(node), -1);
+		} else if (balance(node) == 0) {
+			balance(right(node), 0);
+			balance(left(node), 0);
+		} else {
+			balance(right(node), 1);
+			balance(left(node), 0);
+		}
+		balance(node, 0);
+	}
+
+	/**
+	 * Order the interval [lo, hi] against a node; low first, then high.
+	 */
+	private int compare(long lo, long hi, int node) {
+		long nodeLow = low(node);
+		if (lo != nodeLow) {
+			return lo < nodeLow ? -1 : 1;
+		}
+		long nodeHigh = high(node);
+		if (hi != nodeHigh) {
+			return hi < nodeHigh ? -1 : 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Test to see if the interval [lo, hi] is stored in the tree
+	 */
+	public boolean contains(long lo, long hi) {
+		ensureOpen();
+		return getIntervalNode(lo, hi) != NIL;
+	}
+
+	private int getIntervalNode(long lo, long hi) {
+		int x = root;
+		while (x != NIL) {
+			int compare = compare(lo, hi, x);
+			if (0 == compare) {
+				return x;
+			} else if (compare < 0) {
+				x = left(x);
+			} else {
+				x = right(x);
+			}
+		}
+		return NIL;
+	}
+
+	/**
+	 * Make sure the node has the right maximum of the subtree
+	 * node.max = MAX( node.high, node.left.max, node.right.max );
+	 */
+	private void recalculateMax(int node) {
+		if (node == NIL) return;
+		long m = high(node);
+		int l = left(node);
+		int r = right(node);
+		if (l != NIL && max(l) > m) {
+			m = max(l);
+		}
+		if (r != NIL && max(r) > m) {
+			m = max(r);
+		}
+		max(node, m);
+	}
+
+	/**
+	 * Right rotate/pivot N with its left child; see IntervalTree.rotateRight().
+	 * Assertion: must have a left element!
+	 */
+	private void rotateRight(int node) {
+		int y = left(node);
+		assert y != NIL;
+
+		int b = right(y);
+		left(node, b);
+		if (b != NIL) {
+			parent(b, node);
+		}
+		int p = parent(node);
+		parent(y, p);
+		if (p == NIL) {
+			root = y;
+		} else if (left(p) == node) {
+			left(p, y);
+		} else {
+			right(p, y);
+		}
+		right(y, node);
+		parent(node, y);
+	}
+
+	/**
+	 * Left rotate/pivot N with its right child; see IntervalTree.rotateLeft().
+	 * Assertion: must have a right element!
+	 */
+	private void rotateLeft(int node) {
+		int y = right(node);
+		assert y != NIL;
+
+		int b = left(y);
+		right(node, b);
+		if (b != NIL) {
+			parent(b, node);
+		}
+		int p = parent(node);
+		parent(y, p);
+		if (p == NIL) {
+			root = y;
+		} else if (left(p) == node) {
+			left(p, y);
+		} else {
+			right(p, y);
+		}
+		left(y, node);
+		parent(node, y);
+	}
+
+	private void rotateRightLeft(int node) {
+		rotateRight(right(node));
+		rotateLeft(node);
+	}
+
+	private void rotateLeftRight(int node) {
+		rotateLeft(left(node));
+		rotateRight(node);
+	}
+
+	/**
+	 *  Return the minimum node for the subtree
+	 */
+	int minimumNode(int node) {
+		while (left(node) != NIL) {
+			node = left(node);
+		}
+		return node;
+	}
+
+	/**
+	 *  Return the next greatest element (or NIL)
+	 */
+	int successor(int node) {
+		if (right(node) != NIL) {
+			return minimumNode(right(node));
+		}
+		while (parent(node) != NIL && node == right(parent(node))) {
+			node = parent(node);
+		}
+		return parent(node);
+	}
+
+	/**
+	 * Drop every interval; the storage is kept for reuse.
+	 */
+	public void clear() {
+		ensureOpen();
+		count = 0;
+		next = 0;
+		root = NIL;
+		freeList = NIL;
+		++modCount;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Remove the interval [lo, hi] from the tree
+	 */
+	public boolean remove(long lo, long hi) {
+		ensureOpen();
+		int x = getIntervalNode(lo, hi);
+		if (x != NIL) {
+			remove(x);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Port of IntervalTree.remove(IntervalNode); see there for the gory details.
+	 */
+	private void remove(int node) {
+		int y, w;
+
+		++modCount;
+		--count;
+
+		int r = right(node);
+		int p = parent(node);
+		if (r == NIL || left(r) == NIL) {
+			// simple solutions
+			if (r != NIL) {
+				y = r;
+				parent(y, p);
+				balance(y, balance(node) - 1);
+				int l = left(node);
+				left(y, l);
+				if (l != NIL) {
+					parent(l, y);
+				}
+			} else if (left(node) != NIL) {
+				y = left(node);
+				parent(y, p);
+				balance(y, balance(node) + 1);
+			} else {
+				y = NIL;
+			}
+			if (root == node) {
+				root = y;
+			} else if (left(p) == node) {
+				left(p, y);
+				if (y == NIL) {
+					// account for leaf deletions changing the balance
+					balance(p, balance(p) + 1);
+					y = p; // start searching from here;
+				}
+			} else {
+				right(p, y);
+				if (y == NIL) {
+					balance(p, balance(p) - 1);
+					y = p;
+				}
+			}
+			w = y;
+		} else {
+			// Swap in the successor and fix up the balance factors
+			y = successor(node);
+			int l = left(node);
+			left(y, l);
+			if (l != NIL) {
+				parent(l, y);
+			}
+
+			w = parent(y);
+			int yr = right(y);
+			left(w, yr);
+			if (yr != NIL) {
+				parent(yr, w);
+			}
+			// known: we're removing from the left
+			balance(w, balance(w) + 1);
+
+			// known due to test for n->r->l above
+			right(y, r);
+			parent(r, y);
+			balance(y, balance(node));
+
+			parent(y, p);
+			if (root == node) {
+				root = y;
+			} else if (left(p) == node) {
+				left(p, y);
+			} else {
+				right(p, y);
+			}
+		}
+
+		// Safe to kill node now; its free to go.
+		release(node);
+
+		// Recalculate max values all the way to the top.
+		node = w;
+		while (node != NIL) {
+			recalculateMax(node);
+			node = parent(node);
+		}
+
+		// Re-balance to the top, ending early if OK
+		node = w;
+		while (node != NIL) {
+			int b = balance(node);
+			if (b == -1 || b == 1) {
+				// The height of node hasn't changed; done!
+				break;
+			}
+			if (b == 2) {
+				if (balance(right(node)) == -1) {
+					rotateRightLeft(node);
+					node = parent(node); // old grand-child!
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					fixDoubleRotation(node);
+				} else {
+					rotateLeft(node);
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					recalculateMax(parent(node)); // the new subtree root
+					if (balance(parent(node)) == 0) {
+						balance(parent(node), -1);
+						balance(node, 1);
+						break;
+					} else {
+						balance(parent(node), 0);
+						balance(node, 0);
+						node = parent(node);
+						continue;
+					}
+				}
+			} else if (b == -2) {
+				if (balance(left(node)) == 1) {
+					rotateLeftRight(node);
+					node = parent(node); // old grand-child!
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					fixDoubleRotation(node);
+				} else {
+					rotateRight(node);
+					recalculateMax(left(node));
+					recalculateMax(right(node));
+					recalculateMax(node);
+					recalculateMax(parent(node)); // the new subtree root
+					if (balance(parent(node)) == 0) {
+						balance(parent(node), 1);
+						balance(node, -1);
+						break;
+					} else {
+						balance(parent(node), 0);
+						balance(node, 0);
+						node = parent(node);
+						continue;
+					}
+				}
+			}
+
+			// continue up the tree for testing
+			p = parent(node);
+			if (p != NIL) {
+				if (left(p) == node) {
+					balance(p, balance(p) + 1);
+				} else {
+					balance(p, balance(p) - 1);
+				}
+			}
+			node = p;
+		}
+	}
+
+	/**
+	 * Search the set for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<LongInterval> searchInterval(long lo, long hi) {
+		ensureOpen();
+		List<LongInterval> found = new ArrayList<LongInterval>();
+		searchIntervalRecursive(lo, hi, root, found);
+		return found;
+	}
+
+	private void searchIntervalRecursive(long lo, long hi, int node, List<LongInterval> storage) {
+		if (node == NIL)
+			return;
+
+		// If the node's max interval is less than the low interval, no children will match
+		if (max(node) < lo)
+			return;
+
+		// left children
+		searchIntervalRecursive(lo, hi, left(node), storage);
+
+		// Do we overlap? s.low <= n.high && n.low <= s.high; where s = interval, n = node
+		long nodeLow = low(node);
+		long nodeHigh = high(node);
+		if (lo < nodeHigh && nodeLow < hi) {
+			storage.add(new LongInterval(nodeLow, nodeHigh));
+		}
+
+		// if interval.high is to the left of the start of Node's interval, then no children to the
+		// right will match (short cut)
+		if (hi < nodeLow) {
+			return;
+		}
+
+		// else, search the right nodes as well
+		searchIntervalRecursive(lo, hi, right(node), storage);
+	}
+
+	/**
+	 * Find every element containing point, i.e. low <= point <= high
+	 */
+	public List<LongInterval> stab(long point) {
+		ensureOpen();
+		List<LongInterval> found = new ArrayList<LongInterval>();
+		stabRecursive(point, root, found);
+		return found;
+	}
+
+	private void stabRecursive(long point, int node, List<LongInterval> storage) {
+		while (node != NIL) {
+			// Nothing in this subtree reaches the point
+			if (max(node) < point)
+				return;
+
+			stabRecursive(point, left(node), storage);
+
+			// This node, and everything to its right, starts after the point
+			long nodeLow = low(node);
+			if (point < nodeLow)
+				return;
+
+			long nodeHigh = high(node);
+			if (point <= nodeHigh) {
+				storage.add(new LongInterval(nodeLow, nodeHigh));
+			}
+			node = right(node);
+		}
+	}
+
+	/**
+	 * Search the tree for the element whose low end is nearest to point.
+	 */
+	public LongInterval searchNearest(long point) {
+		return searchNearest(point, SearchNearest.SEARCH_NEAREST_ABSOLUTE);
+	}
+
+	/**
+	 * Search the tree for the element whose low end is nearest to point.
+	 * SEARCH_NEAREST_ROUNDED_DOWN picks the last element with low <= point,
+	 * SEARCH_NEAREST_ROUNDED_UP the first element with low >= point.
+	 */
+	public LongInterval searchNearest(long point, SearchNearest option) {
+		ensureOpen();
+		int found;
+		if (option == SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN) {
+			found = floorNode(point);
+		} else if (option == SearchNearest.SEARCH_NEAREST_ROUNDED_UP) {
+			found = ceilingNode(point);
+		} else {
+			int floor = floorNode(point);
+			int ceiling = ceilingNode(point);
+			if (floor == NIL) {
+				found = ceiling;
+			} else if (ceiling == NIL) {
+				found = floor;
+			} else {
+				// Both distances are non-negative; compare them unsigned so extreme values can't wrap
+				long down = point - low(floor);
+				long up = low(ceiling) - point;
+				found = (down + Long.MIN_VALUE) < (up + Long.MIN_VALUE) ? floor : ceiling;
+			}
+		}
+		return found != NIL ? new LongInterval(low(found), high(found)) : null;
+	}
+
+	/**
+	 * Last node with low <= point (or NIL)
+	 */
+	private int floorNode(long point) {
+		int x = root;
+		int found = NIL;
+		while (x != NIL) {
+			if (low(x) <= point) {
+				found = x;
+				x = right(x);
+			} else {
+				x = left(x);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * First node with low >= point (or NIL)
+	 */
+	private int ceilingNode(long point) {
+		int x = root;
+		int found = NIL;
+		while (x != NIL) {
+			if (low(x) >= point) {
+				found = x;
+				x = left(x);
+			} else {
+				x = right(x);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Verify every node of the tree has the correct balance factor between right and left nodes
+	 *
+	 * @param node to test
+	 * @return height of this node
+	 */
+	private int verifyHeight(int node) {
+		if (node == NIL)
+			return 0;
+		int l = verifyHeight(left(node));
+		int r = verifyHeight(right(node));
+		int calcBalanc = r - l;
+		if (balance(node) != calcBalanc) {
+			throw new IllegalStateException("Balance off; is:" + balance(node) + " should:"
+					+ calcBalanc);
+		}
+		return Math.max(l, r) + 1;
+	}
+
+	/**
+	 * Verify every node of the tree has the correct height
+	 */
+	protected void verifyHeight() {
+		verifyHeight(root);
+	}
+
+	/**
+	 * Verify the in-order walk is sorted and every node carries the right max
+	 */
+	protected void verifyOrder() {
+		if (root == NIL) return;
+		verifyMax(root);
+		int x = minimumNode(root);
+		long last = low(x);
+		while (x != NIL) {
+			if (low(x) < last) {
+				throw new IllegalStateException("Order is off; last:" + last + " now:" + low(x));
+			}
+			last = low(x);
+			x = successor(x);
+		}
+	}
+
+	private long verifyMax(int node) {
+		long m = high(node);
+		if (left(node) != NIL) m = Math.max(m, verifyMax(left(node)));
+		if (right(node) != NIL) m = Math.max(m, verifyMax(right(node)));
+		if (max(node) != m) {
+			throw new IllegalStateException("Max off; is:" + max(node) + " should:" + m);
+		}
+		return m;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+/**
+ * A user supplied summary an IntervalTree keeps for every subtree, like it keeps max: each
+ * element is lifted to a value, and values are combined in tree order. combine() must be
+ * associative with identity() as its identity (a monoid), since the tree regroups values freely
+ * as it rotates; it doesn't have to be commutative.
+ *
+ * @param <T> the interval end point type
+ * @param <A> the aggregate value type
+ */
+public interface Aggregate<T extends Comparable<T>, A> {
+	A identity();
+
+	A lift(Interval<T> element);
+
+	A combine(A left, A right);
+}
@@ -0,0 +1,143 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.Arrays;
+
+/**
+ * A long interval tree kept as a structure of arrays. Nodes are int handles into parallel
+ * primitive arrays (links, balance factors and endpoints) instead of heap objects, so the whole
+ * tree is a handful of large arrays no matter how many intervals it holds.
+ * Same AVL logic as {@link IntervalTree}; intervals are ordered by low, then by high.
+ * Removed handles are kept on a free list (threaded through left[]) and reused by add().
+ */
+public class ArrayIntervalTree extends AbstractLongIntervalTree {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	private byte[] balanceFactor;
+	private long[] low;
+	private long[] high;
+	private long[] max;
+
+	public ArrayIntervalTree() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ArrayIntervalTree(int initialCapacity) {
+		if (initialCapacity < 1)
+			initialCapacity = 1;
+		left = new int[initialCapacity];
+		right = new int[initialCapacity];
+		parent = new int[initialCapacity];
+		balanceFactor = new byte[initialCapacity];
+		low = new long[initialCapacity];
+		high = new long[initialCapacity];
+		max = new long[initialCapacity];
+	}
+
+	@Override
+	int left(int node) {
+		return left[node];
+	}
+
+	@Override
+	void left(int node, int value) {
+		left[node] = value;
+	}
+
+	@Override
+	int right(int node) {
+		return right[node];
+	}
+
+	@Override
+	void right(int node, int value) {
+		right[node] = value;
+	}
+
+	@Override
+	int parent(int node) {
+		return parent[node];
+	}
+
+	@Override
+	void parent(int node, int value) {
+		parent[node] = value;
+	}
+
+	@Override
+	int balance(int node) {
+		return balanceFactor[node];
+	}
+
+	@Override
+	void balance(int node, int value) {
+		balanceFactor[node] = (byte) value;
+	}
+
+	@Override
+	long low(int node) {
+		return low[node];
+	}
+
+	@Override
+	long high(int node) {
+		return high[node];
+	}
+
+	@Override
+	long max(int node) {
+		return max[node];
+	}
+
+	@Override
+	void max(int node, long value) {
+		max[node] = value;
+	}
+
+	@Override
+	void init(int node, long lo, long hi, int parentNode) {
+		left[node] = NIL;
+		right[node] = NIL;
+		parent[node] = parentNode;
+		balanceFactor[node] = 0;
+		low[node] = lo;
+		high[node] = hi;
+		max[node] = hi; // Initial value is always ourself.
+	}
+
+	@Override
+	int capacity() {
+		return low.length;
+	}
+
+	@Override
+	void grow() {
+		int capacity = low.length + (low.length >> 1) + 1;
+		if (capacity < 0)
+			capacity = Integer.MAX_VALUE - 8;
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		balanceFactor = Arrays.copyOf(balanceFactor, capacity);
+		low = Arrays.copyOf(low, capacity);
+		high = Arrays.copyOf(high, capacity);
+		max = Arrays.copyOf(max, capacity);
+	}
+}
@@ -0,0 +1,807 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A lock free interval set for many concurrent writers. It's a skip list (Herlihy and Shavit's
+ * lock free version, marking links by wrapping them as ConcurrentSkipListMap does): an add or
+ * remove is a few CAS operations on the nodes next to the element, with no rotations and nothing
+ * global to lock, so writers only meet when they touch neighbouring elements. Iteration and
+ * searches are weakly consistent, like ConcurrentSkipListSet: they never throw
+ * ConcurrentModificationException and see every element present for their whole run.
+ *
+ * Each node keeps, per level, the reach of its segment: a bound on the upper end point of every
+ * element from the node up to its next node on that level. It plays the part of IntervalNode.max;
+ * searchInterval() skips any segment whose reach can't overlap the query. Reaches are raised by
+ * CAS; when a new node splits a segment or an element goes, the reach left behind is tightened
+ * from the level below, with a count of tightenings in progress so no raise is lost. Work above
+ * a node's own levels stops at the list's current height, not MAX_LEVEL.
+ *
+ * Memory: a node only on level 0, half of them, is about 40 bytes. A node up to level k adds
+ * three atomic arrays (links, reaches, tightening counts; ~100 bytes) and ~28 bytes a level for
+ * their slots and a Reach object, so the average is about 120 bytes, over twice an IntervalTree
+ * node.
+ *
+ * Like IntervalTree's searches, this assumes the comparator orders by lower end point first.
+ */
+public class ConcurrentIntervalSkipList<V extends Comparable<V>> extends AbstractSet<Interval<V>>
+		implements SortedSet<Interval<V>> {
+	// Levels 0..MAX_LEVEL-1; plenty for 2^32 elements
+	static final int MAX_LEVEL = 32;
+
+	private final Comparator<Interval<V>> comparator;
+	private final Node<V> head = new Node<V>(null, MAX_LEVEL - 1);
+	private final LongAdder count = new LongAdder();
+	// Highest level a node is linked on, or about to be; finds and raises stop here
+	private final AtomicInteger maxLevel = new AtomicInteger();
+	// Highest level the head's reach is complete on; searches start here
+	private final AtomicInteger searchLevel = new AtomicInteger();
+
+	ConcurrentIntervalSkipList(Comparator<Interval<V>> comparator) {
+		this.comparator = comparator;
+	}
+
+	ConcurrentIntervalSkipList() {
+		this(new IntervalTree<V>().comparator());
+	}
+
+	/**
+	 * Add the element to the list.
+	 */
+	@Override
+	public boolean add(Interval<V> element) {
+		Node<V>[] preds = newNodeArray();
+		Node<V>[] succs = newNodeArray();
+		int topLevel = randomLevel();
+		growTo(topLevel);
+		Node<V> node;
+		while (true) {
+			if (find(element, preds, succs))
+				return false;
+			node = new Node<V>(element, topLevel);
+			for (int level = 0; level <= topLevel; level++) {
+				node.setNext(level, succs[level]);
+			}
+			// Linking level 0 is what adds the element; the rest is just shortcuts
+			if (preds[0].casNext(0, succs[0], node))
+				break;
+		}
+		count.increment();
+
+		for (int level = 1; level <= topLevel; level++) {
+			while (true) {
+				Node<V> pred = preds[level];
+				Node<V> succ = succs[level];
+				Object link = node.link(level);
+				if (link instanceof Marked)
+					return true; // Already being removed, stop building
+				if (link != succ && !node.casNext(level, Node.<V> target(link), succ))
+					return true;
+				// Cover our segment before it's visible, and again after: anything raising pred
+				// after our CAS checks pred.next and moves on to us, anything before it is on the
+				// level below by then
+				cover(node, level);
+				if (pred.casNext(level, succ, node)) {
+					cover(node, level);
+					// We took the tail of pred's segment; if that held its max, bring it down
+					V predReach = reach(pred, level);
+					if (predReach != null && predReach.compareTo(reach(node, level)) <= 0) {
+						tighten(pred, level);
+					}
+					break;
+				}
+				find(element, preds, succs);
+				if (succs[0] != node)
+					return true; // Removed while we were building
+			}
+		}
+
+		// Levels above ours: the element falls in its predecessor's segment. Read the height after
+		// each level, so a list growing under us either sees our raise when it covers the head or
+		// has us raise the head ourselves.
+		V upper = element.getUpper();
+		for (int level = topLevel + 1; level <= maxLevel.get(); level++) {
+			while (true) {
+				Node<V> pred = preds[level];
+				raise(pred, level, upper);
+				// Only good if pred still owns the segment: not being removed, nothing linked
+				// between it and us
+				Object link = pred.link(level);
+				Node<V> succ = Node.target(link);
+				if (!(link instanceof Marked)
+						&& (succ == null || comparator.compare(succ.object, element) > 0))
+					break;
+				find(element, preds, succs);
+				if (succs[0] != node)
+					return true;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		@SuppressWarnings("unchecked")
+		Interval<V> element = (Interval<V>) object;
+		Node<V>[] preds = newNodeArray();
+		Node<V>[] succs = newNodeArray();
+		if (!find(element, preds, succs))
+			return false;
+		Node<V> node = succs[0];
+
+		// Mark top down so the shortcuts go first, then level 0, which is the actual removal
+		for (int level = node.topLevel; level > 0; level--) {
+			node.mark(level);
+		}
+		if (!node.mark(0))
+			return false; // Someone else got it
+		count.decrement();
+		find(element, preds, succs); // Unlinks it
+		V upper = element.getUpper();
+		for (int level = 1; level <= maxLevel.get(); level++) {
+			// Only a reach the element was holding up can come down
+			V reach = reach(preds[level], level);
+			if (reach != null && reach.compareTo(upper) <= 0) {
+				tighten(preds[level], level);
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <V extends Comparable<V>> Node<V>[] newNodeArray() {
+		return new Node[MAX_LEVEL];
+	}
+
+	/**
+	 * Make the list at least level high before a node is linked there. Whoever raises the height
+	 * covers the head on the new levels, bottom up from the last one searches trust, and only then
+	 * lets searches start that high.
+	 */
+	private void growTo(int level) {
+		int height;
+		do {
+			height = maxLevel.get();
+			if (height >= level)
+				return;
+		} while (!maxLevel.compareAndSet(height, level));
+		for (int l = searchLevel.get() + 1; l <= level; l++) {
+			cover(head, l);
+		}
+		do {
+			height = searchLevel.get();
+			if (height >= level)
+				return;
+		} while (!searchLevel.compareAndSet(height, level));
+	}
+
+	/**
+	 * Fill preds and succs with the last node before element and the first at or after it on
+	 * every level up to the list's height, unlinking any marked nodes on the way; above it the
+	 * head is the predecessor.
+	 *
+	 * @return true if succs[0] is element
+	 */
+	private boolean find(Interval<V> element, Node<V>[] preds, Node<V>[] succs) {
+		retry: while (true) {
+			Node<V> pred = head;
+			int height = maxLevel.get();
+			for (int level = MAX_LEVEL - 1; level > height; level--) {
+				preds[level] = head;
+				succs[level] = null;
+			}
+			for (int level = height; level >= 0; level--) {
+				Node<V> curr = pred.next(level);
+				while (curr != null) {
+					Object link = curr.link(level);
+					Node<V> succ = Node.target(link);
+					if (link instanceof Marked) {
+						// Fold curr's segment into pred's first, so it's never left uncovered
+						if (level > 0) {
+							raise(pred, level, reach(curr, level));
+						}
+						if (!pred.casNext(level, curr, succ))
+							continue retry;
+						curr = succ;
+					} else if (comparator.compare(curr.object, element) < 0) {
+						pred = curr;
+						curr = succ;
+					} else {
+						break;
+					}
+				}
+				preds[level] = pred;
+				succs[level] = curr;
+			}
+			return succs[0] != null && comparator.compare(succs[0].object, element) == 0;
+		}
+	}
+
+	/**
+	 * First live node >= element (or > element if not inclusive), without changing anything;
+	 * null if there is none.
+	 */
+	private Node<V> findNear(Interval<V> element, boolean inclusive) {
+		Node<V> pred = head;
+		Node<V> curr = null;
+		for (int level = maxLevel.get(); level >= 0; level--) {
+			curr = pred.next(level);
+			while (curr != null) {
+				int compare = comparator.compare(curr.object, element);
+				if (compare < 0 || (compare == 0 && !inclusive)) {
+					pred = curr;
+					curr = curr.next(level);
+				} else {
+					break;
+				}
+			}
+		}
+		while (curr != null && curr.isMarked(0)) {
+			curr = curr.next(0);
+		}
+		return curr;
+	}
+
+	/**
+	 * Raise node's reach on level (> 0) over its segment
+	 */
+	private void cover(Node<V> node, int level) {
+		raise(node, level, segmentMax(node, level));
+	}
+
+	/**
+	 * Largest reach on the level below within node's segment on level; null if it's empty
+	 */
+	private V segmentMax(Node<V> node, int level) {
+		Node<V> end = node.next(level);
+		V max = null;
+		for (Node<V> x = node; x != null && x != end;) {
+			Node<V> next;
+			V reach;
+			if (level > 1) {
+				Reach<V> r;
+				do { // See searchSegment()
+					r = x.reach.get(level - 1);
+					next = x.next(level - 1);
+				} while (r != x.reach.get(level - 1));
+				reach = r != null ? r.upper : null;
+			} else {
+				next = x.next(0);
+				reach = reach(x, 0);
+			}
+			if (reach != null && (max == null || reach.compareTo(max) > 0)) {
+				max = reach;
+			}
+			if (end != null && next != null && comparator.compare(next.object, end.object) >= 0)
+				break;
+			x = next;
+		}
+		return max;
+	}
+
+	/**
+	 * Drop node's reach on level to what its segment holds now, if that's lower. While the
+	 * tightening count is up every raise writes, even one already covered, so a raise that lands
+	 * after the walk below fails our CAS instead of being lost.
+	 */
+	private void tighten(Node<V> node, int level) {
+		Reach<V> current = node.reach.get(level);
+		V max = segmentMax(node, level);
+		if (current == null || max == null || max.compareTo(current.upper) >= 0)
+			return;
+		node.tightening.incrementAndGet(level);
+		try {
+			current = node.reach.get(level);
+			max = segmentMax(node, level);
+			if (max != null && max.compareTo(current.upper) < 0) {
+				node.reach.compareAndSet(level, current, new Reach<V>(max));
+			}
+		} finally {
+			node.tightening.decrementAndGet(level);
+		}
+	}
+
+	private static <V extends Comparable<V>> V reach(Node<V> node, int level) {
+		if (level == 0)
+			return node.object != null ? node.object.getUpper() : null;
+		Reach<V> reach = node.reach.get(level);
+		return reach != null ? reach.upper : null;
+	}
+
+	/**
+	 * Lift node's reach on level to at least upper
+	 */
+	private static <V extends Comparable<V>> void raise(Node<V> node, int level, V upper) {
+		if (upper == null)
+			return;
+		while (true) {
+			boolean tightening = node.tightening.get(level) != 0;
+			Reach<V> current = node.reach.get(level);
+			if (current != null && current.upper.compareTo(upper) >= 0) {
+				if (!tightening)
+					return;
+				upper = current.upper; // Same bound, new object: the tightening has to start over
+			}
+			if (node.reach.compareAndSet(level, current, new Reach<V>(upper)))
+				return;
+		}
+	}
+
+	private static int randomLevel() {
+		// Level k with probability 2^-(k+1)
+		return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt()
+				| 1 << (MAX_LEVEL - 1));
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		@SuppressWarnings("unchecked")
+		Interval<V> element = (Interval<V>) object;
+		if (element == null)
+			return false;
+		Node<V> node = findNear(element, true);
+		return node != null && comparator.compare(node.object, element) == 0;
+	}
+
+	/**
+	 * Number of elements; like ConcurrentSkipListSet this is only a snapshot if nothing is
+	 * changing.
+	 */
+	@Override
+	public int size() {
+		long size = count.sum();
+		return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(size, 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return first() == null;
+	}
+
+	/**
+	 * Search the list for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<Interval<V>> searchInterval(Interval<V> interval) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		searchSegment(interval, head, searchLevel.get(), null, found::add);
+		return found;
+	}
+
+	/**
+	 * Hand every element in the interval to sink, in order, without building a list.
+	 */
+	public void searchInterval(Interval<V> interval, Consumer<? super Interval<V>> sink) {
+		searchSegment(interval, head, searchLevel.get(), null, sink);
+	}
+
+	/**
+	 * Walk level from node up to (not including) end, null for no end, dropping a level into
+	 * each segment whose reach gets past interval.low.
+	 */
+	private void searchSegment(Interval<V> interval, Node<V> node, int level, Node<V> end,
+			Consumer<? super Interval<V>> sink) {
+		V low = interval.getLower();
+		V high = interval.getUpper();
+		while (node != null && node != end) {
+			if (node != head) {
+				// end is normally met by identity; compare only in case it was unlinked under us
+				if (end != null && end.isMarked(level)
+						&& comparator.compare(node.object, end.object) >= 0)
+					return;
+				// Nothing from here on can start before interval.high
+				if (node.object.getLower().compareTo(high) >= 0)
+					return;
+			}
+			Node<V> next;
+			if (level == 0) {
+				next = node.next(0);
+				if (node != head && low.compareTo(node.object.getUpper()) < 0
+						&& !node.isMarked(0)) {
+					sink.accept(node.object);
+				}
+			} else {
+				// The reach has to match the link: a node linked after next was read lets ours be
+				// tightened below what we'd skip, and one unlinked is folded into ours. Every write
+				// swaps the Reach object, so read next between two reads of the same one.
+				Reach<V> r;
+				do {
+					r = node.reach.get(level);
+					next = node.next(level);
+				} while (r != node.reach.get(level));
+				V reach = r != null ? r.upper : null;
+				if (reach != null && reach.compareTo(low) > 0) {
+					Node<V> segmentEnd = next;
+					if (end != null && end.isMarked(level)
+							&& (next == null || comparator.compare(next.object, end.object) > 0)) {
+						segmentEnd = end;
+					}
+					searchSegment(interval, node, level - 1, segmentEnd, sink);
+				}
+			}
+			node = next;
+		}
+	}
+
+	/**
+	 * Iterate the elements in sorted order; weakly consistent, and remove() is supported.
+	 */
+	@Override
+	public Iterator<Interval<V>> iterator() {
+		return new Itr(firstNode(), null);
+	}
+
+	private Node<V> firstNode() {
+		Node<V> node = head.next(0);
+		while (node != null && node.isMarked(0)) {
+			node = node.next(0);
+		}
+		return node;
+	}
+
+	private class Itr implements Iterator<Interval<V>> {
+		private Node<V> next;
+		private Interval<V> last;
+		private final Interval<V> end; // exclusive; null for none
+
+		Itr(Node<V> start, Interval<V> end) {
+			this.end = end;
+			this.next = inRange(start);
+		}
+
+		private Node<V> inRange(Node<V> node) {
+			while (node != null && node.isMarked(0)) {
+				node = node.next(0);
+			}
+			if (node != null && end != null && comparator.compare(node.object, end) >= 0)
+				return null;
+			return node;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Interval<V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			last = next.object;
+			next = inRange(next.next(0));
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			ConcurrentIntervalSkipList.this.remove(last);
+			last = null;
+		}
+	}
+
+	@Override
+	public Comparator<Interval<V>> comparator() {
+		return comparator;
+	}
+
+	@Override
+	public Interval<V> first() {
+		Node<V> first = firstNode();
+		return first != null ? first.object : null;
+	}
+
+	@Override
+	public Interval<V> last() {
+		// Run along each level to its end, then finish on level 0
+		Node<V> node = head;
+		for (int level = maxLevel.get(); level > 0; level--) {
+			for (Node<V> next = node.next(level); next != null; next = next.next(level)) {
+				node = next;
+			}
+		}
+		Interval<V> last = null;
+		for (; node != null; node = node.next(0)) {
+			if (node != head && !node.isMarked(0)) {
+				last = node.object;
+			}
+		}
+		if (last == null) {
+			// Everything we passed was being removed, if anything; take the long way
+			for (Interval<V> element : this) {
+				last = element;
+			}
+		}
+		return last;
+	}
+
+	@Override
+	public SortedSet<Interval<V>> headSet(Interval<V> toElement) {
+		return new SubList(null, toElement);
+	}
+
+	@Override
+	public SortedSet<Interval<V>> subSet(Interval<V> fromElement, Interval<V> toElement) {
+		return new SubList(fromElement, toElement);
+	}
+
+	@Override
+	public SortedSet<Interval<V>> tailSet(Interval<V> fromElement) {
+		return new SubList(fromElement, null);
+	}
+
+	/**
+	 * Check each level is sorted and a subset of the one below, and every reach covers its
+	 * segment; throws IllegalStateException on the first problem. Only meaningful when nothing
+	 * is changing.
+	 */
+	protected void verify() {
+		for (int level = 0; level <= maxLevel.get(); level++) {
+			Node<V> below = head;
+			for (Node<V> node = head; node != null; node = node.next(level)) {
+				Node<V> next = node.next(level);
+				if (node != head && next != null && comparator.compare(node.object, next.object) >= 0) {
+					throw new IllegalStateException("Order is off at level " + level + ": "
+							+ node.object + " then " + next.object);
+				}
+				if (level == 0)
+					continue;
+				while (below != null && below != node) {
+					below = below.next(level - 1);
+				}
+				if (below == null) {
+					throw new IllegalStateException("Level " + level + " has " + node.object
+							+ " but the level below does not");
+				}
+				V reach = reach(node, level);
+				for (Node<V> x = node; x != null && x != next; x = x.next(0)) {
+					if (x != head && (reach == null || reach.compareTo(x.object.getUpper()) < 0)) {
+						throw new IllegalStateException("Reach off at level " + level + ": "
+								+ reach + " doesn't cover " + x.object);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A skip list node. A link holds the next node, or a Marked wrapping it once this node is
+	 * being removed from that level, so the mark and the pointer change in one CAS. Level 0 is a
+	 * field of its own: every walk ends there.
+	 */
+	static final class Node<V extends Comparable<V>> {
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Node, Object> NEXT = AtomicReferenceFieldUpdater
+				.newUpdater(Node.class, Object.class, "next");
+
+		final Interval<V> object;
+		private volatile Object next; // level 0
+		private final AtomicReferenceArray<Object> links; // levels 1..topLevel; slot 0 unused
+		// Both null on level 0 only nodes; slot 0 unused, that reach is just object.getUpper()
+		final AtomicReferenceArray<Reach<V>> reach;
+		final AtomicIntegerArray tightening; // tighten() calls running on each level
+		final int topLevel;
+
+		Node(Interval<V> object, int topLevel) {
+			this.object = object;
+			this.topLevel = topLevel;
+			this.links = topLevel > 0 ? new AtomicReferenceArray<Object>(topLevel + 1) : null;
+			this.reach = topLevel > 0 ? new AtomicReferenceArray<Reach<V>>(topLevel + 1) : null;
+			this.tightening = topLevel > 0 ? new AtomicIntegerArray(topLevel + 1) : null;
+			if (object != null) {
+				for (int i = 1; i <= topLevel; i++) {
+					reach.set(i, new Reach<V>(object.getUpper()));
+				}
+			}
+		}
+
+		Object link(int level) {
+			return level == 0 ? next : links.get(level);
+		}
+
+		Node<V> next(int level) {
+			return target(link(level));
+		}
+
+		boolean isMarked(int level) {
+			return link(level) instanceof Marked;
+		}
+
+		void setNext(int level, Node<V> node) {
+			if (level == 0) {
+				next = node;
+			} else {
+				links.set(level, node);
+			}
+		}
+
+		/**
+		 * Swing an unmarked link from expect to update
+		 */
+		boolean casNext(int level, Node<V> expect, Node<V> update) {
+			return casLink(level, expect, update);
+		}
+
+		/**
+		 * Mark the link on level; true if this call did it, false if it was already marked
+		 */
+		boolean mark(int level) {
+			while (true) {
+				Object link = link(level);
+				if (link instanceof Marked)
+					return false;
+				if (casLink(level, link, new Marked(link)))
+					return true;
+			}
+		}
+
+		private boolean casLink(int level, Object expect, Object update) {
+			return level == 0 ? NEXT.compareAndSet(this, expect, update) : links.compareAndSet(level,
+					expect, update);
+		}
+
+		@SuppressWarnings("unchecked")
+		static <V extends Comparable<V>> Node<V> target(Object link) {
+			return (Node<V>) (link instanceof Marked ? ((Marked) link).node : link);
+		}
+	}
+
+	/**
+	 * A marked link
+	 */
+	static final class Marked {
+		final Object node;
+
+		Marked(Object node) {
+			this.node = node;
+		}
+	}
+
+	/**
+	 * A reach bound; raises and tightenings swap whole objects so a CAS notices any write
+	 */
+	static final class Reach<V> {
+		final V upper;
+
+		Reach(V upper) {
+			this.upper = upper;
+		}
+	}
+
+	/**
+	 * A live view of [fromElement, toElement); null bounds are open.
+	 */
+	private class SubList extends AbstractSet<Interval<V>> implements SortedSet<Interval<V>> {
+		private final Interval<V> fromElement;
+		private final Interval<V> toElement;
+
+		SubList(Interval<V> fromElement, Interval<V> toElement) {
+			if (fromElement != null && toElement != null
+					&& comparator.compare(fromElement, toElement) > 0) {
+				throw new IllegalArgumentException("fromElement > toElement");
+			}
+			this.fromElement = fromElement;
+			this.toElement = toElement;
+		}
+
+		private boolean inRange(Interval<V> element) {
+			return (fromElement == null || comparator.compare(element, fromElement) >= 0)
+					&& (toElement == null || comparator.compare(element, toElement) < 0);
+		}
+
+		private boolean inBounds(Interval<V> element) {
+			return (fromElement == null || comparator.compare(element, fromElement) >= 0)
+					&& (toElement == null || comparator.compare(element, toElement) <= 0);
+		}
+
+		@Override
+		public boolean add(Interval<V> element) {
+			if (!inRange(element)) {
+				throw new IllegalArgumentException("element out of range");
+			}
+			return ConcurrentIntervalSkipList.this.add(element);
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			@SuppressWarnings("unchecked")
+			Interval<V> element = (Interval<V>) object;
+			return inRange(element) && ConcurrentIntervalSkipList.this.remove(element);
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			@SuppressWarnings("unchecked")
+			Interval<V> element = (Interval<V>) object;
+			return element != null && inRange(element) && ConcurrentIntervalSkipList.this.contains(element);
+		}
+
+		@Override
+		public Iterator<Interval<V>> iterator() {
+			return new Itr(fromElement != null ? findNear(fromElement, true) : firstNode(), toElement);
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (Iterator<Interval<V>> it = iterator(); it.hasNext(); it.next()) {
+				size++;
+			}
+			return size;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return !iterator().hasNext();
+		}
+
+		@Override
+		public Comparator<? super Interval<V>> comparator() {
+			return comparator;
+		}
+
+		@Override
+		public Interval<V> first() {
+			Iterator<Interval<V>> it = iterator();
+			return it.hasNext() ? it.next() : null;
+		}
+
+		@Override
+		public Interval<V> last() {
+			Interval<V> last = null;
+			for (Interval<V> element : this) {
+				last = element;
+			}
+			return last;
+		}
+
+		@Override
+		public SortedSet<Interval<V>> headSet(Interval<V> to) {
+			return subSet(fromElement, to);
+		}
+
+		@Override
+		public SortedSet<Interval<V>> subSet(Interval<V> from, Interval<V> to) {
+			if ((from != null && !inBounds(from)) || (to != null && !inBounds(to))) {
+				throw new IllegalArgumentException("bound out of range");
+			}
+			return new SubList(from, to);
+		}
+
+		@Override
+		public SortedSet<Interval<V>> tailSet(Interval<V> from) {
+			return subSet(from, toElement);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import com.binarydreamers.trees.IntervalTree.IntervalNode;
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+/**
+ * An IntervalTree safe for any number of readers and writers. Writes take a StampedLock
+ * exclusively; contains(), searchInterval() and searchNearestElement() first try an optimistic
+ * read, which takes no lock at all, and only fall back to a shared read lock if a write got in
+ * the way. Readers therefore don't contend with each other, only with writers.
+ *
+ * An optimistic read can see the tree half way through a write: nodes from before and after a
+ * rotation, even a loop. So the optimistic paths here use their own walks: top down only (no
+ * parent pointers), stopping at MAX_DEPTH, far deeper than any AVL tree can be, and any
+ * exception they hit just means the read is retried under the lock.
+ */
+public class ConcurrentIntervalTree<V extends Comparable<V>> {
+	// An AVL tree of 2^31 elements is less than 45 deep
+	private static final int MAX_DEPTH = 128;
+
+	private final IntervalTree<V> tree;
+	private final StampedLock lock = new StampedLock();
+
+	ConcurrentIntervalTree(Comparator<Interval<V>> comparator) {
+		this.tree = new IntervalTree<V>(comparator);
+	}
+
+	ConcurrentIntervalTree() {
+		this.tree = new IntervalTree<V>();
+	}
+
+	/**
+	 * Add the element to the tree.
+	 */
+	public boolean add(Interval<V> element) {
+		long stamp = lock.writeLock();
+		try {
+			return tree.add(element);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public boolean remove(Interval<V> element) {
+		long stamp = lock.writeLock();
+		try {
+			return tree.remove(element);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			tree.clear();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int size = tree.size();
+		if (lock.validate(stamp)) {
+			return size;
+		}
+		stamp = lock.readLock();
+		try {
+			return tree.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Test to see if an element is stored in the tree
+	 */
+	public boolean contains(Interval<V> element) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				boolean found = find(element) != null;
+				if (lock.validate(stamp)) {
+					return found;
+				}
+			} catch (RuntimeException e) {
+				// Torn read; retry under the lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return tree.contains(element);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private IntervalNode<V> find(Interval<V> element) {
+		Comparator<Interval<V>> comparator = tree.comparator();
+		IntervalNode<V> x = tree.root();
+		for (int depth = 0; x != null; depth++) {
+			checkDepth(depth);
+			int compare = comparator.compare(element, x.object);
+			if (compare == 0) {
+				return x;
+			}
+			x = compare < 0 ? x.left : x.right;
+		}
+		return null;
+	}
+
+	/**
+	 * Search the set for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<Interval<V>> searchInterval(Interval<V> interval) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				List<Interval<V>> found = new ArrayList<Interval<V>>();
+				searchIntervalRecursive(interval, tree.root(), found, 0);
+				if (lock.validate(stamp)) {
+					return found;
+				}
+			} catch (RuntimeException e) {
+				// Torn read; retry under the lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return tree.searchInterval(interval);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private void searchIntervalRecursive(Interval<V> interval, IntervalNode<V> node,
+			List<Interval<V>> storage, int depth) {
+		while (node != null) {
+			checkDepth(depth++);
+			if (node.max.compareTo(interval.getLower()) < 0)
+				return;
+
+			searchIntervalRecursive(interval, node.left, storage, depth);
+
+			Interval<V> element = node.object;
+			if (interval.getLower().compareTo(element.getUpper()) < 0
+					&& element.getLower().compareTo(interval.getUpper()) < 0) {
+				storage.add(element);
+			}
+
+			if (interval.getUpper().compareTo(element.getLower()) < 0)
+				return;
+
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Search the tree for the matching element, or the 'nearest' element by comparator.
+	 */
+	public Interval<V> searchNearestElement(Interval<V> element) {
+		return searchNearestElement(element, SearchNearest.SEARCH_NEAREST_ABSOLUTE);
+	}
+
+	/**
+	 * Search the tree for the matching element, or the 'nearest' element; same rules as
+	 * IntervalTree.searchNearestElement().
+	 */
+	public Interval<V> searchNearestElement(Interval<V> element, SearchNearest nearestOption) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				Interval<V> found = searchNearest(element, nearestOption);
+				if (lock.validate(stamp)) {
+					return found;
+				}
+			} catch (RuntimeException e) {
+				// Torn read; retry under the lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return tree.searchNearestElement(element, nearestOption);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * IntervalTree.searchNearest() without the predecessor()/successor() climbs: the neighbours
+	 * are the last nodes where the descent turned right (floor) and left (ceiling).
+	 */
+	private Interval<V> searchNearest(Interval<V> element, SearchNearest option) {
+		if (element == null)
+			return null;
+		Comparator<Interval<V>> comparator = tree.comparator();
+		IntervalNode<V> x = tree.root();
+		IntervalNode<V> floor = null, ceiling = null;
+		for (int depth = 0; x != null; depth++) {
+			checkDepth(depth);
+			int compare = comparator.compare(element, x.object);
+			if (compare == 0) {
+				return x.object;
+			} else if (compare < 0) {
+				ceiling = x;
+				x = x.left;
+			} else {
+				floor = x;
+				x = x.right;
+			}
+		}
+
+		if (option == SearchNearest.SEARCH_NEAREST_ROUNDED_UP) {
+			return ceiling != null ? ceiling.object : null;
+		} else if (option == SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN) {
+			return floor != null ? floor.object : null;
+		}
+		if (floor == null)
+			return ceiling != null ? ceiling.object : null;
+		if (ceiling == null)
+			return floor.object;
+		int below = comparator.compare(element, floor.object);
+		int above = comparator.compare(element, ceiling.object);
+		return Math.abs(above) < below ? ceiling.object : floor.object;
+	}
+
+	private static void checkDepth(int depth) {
+		if (depth > MAX_DEPTH) {
+			// Only a torn optimistic read can get this deep
+			throw new ConcurrentModificationException();
+		}
+	}
+}
@@ -0,0 +1,324 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.binarydreamers.trees.IntervalTree.MaxDepth;
+
+/**
+ * Both end points of every element of an IntervalTree, in order, as +1 (lower) and -1 (upper)
+ * steps. A prefix sum of the steps up to a point is the number of elements active there, so with
+ * each subtree's step sum and best prefix sum the tree answers depth and count questions in
+ * O(log n). The IntervalTree itself is sorted by lower end point only, which can't do that.
+ *
+ * Entries are ordered by end point value, upper before lower at the same value (elements are
+ * half open, so one ending at x and one starting at x never overlap), then by the tree comparator
+ * so every entry is distinct. Height balanced (AVL) with recursive insert and delete; it's a
+ * helper index and never iterated, so there are no parent links.
+ */
+class EndpointTree<V extends Comparable<V>> {
+	private final Comparator<Interval<V>> comparator;
+	private final Comparator<EndpointNode<V>> order = new Comparator<EndpointNode<V>>() {
+		@Override
+		public int compare(EndpointNode<V> o1, EndpointNode<V> o2) {
+			return EndpointTree.this.compare(o1.object, o1.upper, o2);
+		}
+	};
+	private EndpointNode<V> root;
+
+	/**
+	 * Index every element of tree
+	 */
+	EndpointTree(IntervalTree<V> tree) {
+		this.comparator = tree.comparator();
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		EndpointNode<V>[] entries = new EndpointNode[tree.size() * 2];
+		int i = 0;
+		for (Interval<V> element : tree) {
+			entries[i++] = new EndpointNode<V>(element, false);
+			entries[i++] = new EndpointNode<V>(element, true);
+		}
+		Arrays.sort(entries, order);
+		root = build(entries, 0, entries.length);
+	}
+
+	private static <V extends Comparable<V>> EndpointNode<V> build(EndpointNode<V>[] entries,
+			int lo, int hi) {
+		if (lo >= hi)
+			return null;
+		int mid = (lo + hi) >>> 1;
+		EndpointNode<V> node = entries[mid];
+		node.left = build(entries, lo, mid);
+		node.right = build(entries, mid + 1, hi);
+		update(node);
+		return node;
+	}
+
+	private int compare(Interval<V> element, boolean upper, EndpointNode<V> node) {
+		int comp = value(element, upper).compareTo(node.value());
+		if (comp == 0 && upper != node.upper) {
+			comp = upper ? -1 : 1;
+		}
+		if (comp == 0) {
+			comp = comparator.compare(element, node.object);
+		}
+		return comp;
+	}
+
+	private static <V extends Comparable<V>> V value(Interval<V> element, boolean upper) {
+		return upper ? element.getUpper() : element.getLower();
+	}
+
+	/**
+	 * Number of elements whose upper end point is <= point
+	 */
+	int countAtMost(V point) {
+		int count = 0;
+		EndpointNode<V> x = root;
+		while (x != null) {
+			if (x.value().compareTo(point) <= 0) {
+				count += uppers(x.left) + (x.upper ? 1 : 0);
+				x = x.right;
+			} else {
+				x = x.left;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Number of elements active at point: lower <= point < upper
+	 */
+	int depthAt(V point) {
+		int depth = 0;
+		EndpointNode<V> x = root;
+		while (x != null) {
+			if (x.value().compareTo(point) <= 0) {
+				depth += sum(x.left) + x.step();
+				x = x.right;
+			} else {
+				x = x.left;
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Most elements active at any one point of [low, high), and the first point where that
+	 * happens. For low >= high, just the depth at low.
+	 */
+	MaxDepth<V> maxDepth(V low, V high) {
+		Peak<V> peak = new Peak<V>();
+		collect(root, low, high, peak);
+		int depth = depthAt(low);
+		if (peak.best > 0) {
+			return new MaxDepth<V>(depth + peak.best, peak.bestAt);
+		}
+		return new MaxDepth<V>(depth, low);
+	}
+
+	/**
+	 * Feed peak, in order, the steps of every entry with low < value < high (null for no bound).
+	 * Whole subtrees inside the bounds are taken in one go from their sums, so O(log n) overall.
+	 */
+	private static <V extends Comparable<V>> void collect(EndpointNode<V> node, V low, V high,
+			Peak<V> peak) {
+		while (node != null) {
+			if (low == null && high == null) {
+				peak.add(node.sum, node.maxPrefix, node.peakAt);
+				return;
+			}
+			if (low != null && node.value().compareTo(low) <= 0) {
+				node = node.right;
+			} else if (high != null && node.value().compareTo(high) >= 0) {
+				node = node.left;
+			} else {
+				// The node splits the range: its left side only needs the low bound, its right side
+				// only the high one
+				collect(node.left, low, null, peak);
+				peak.add(node.step(), node.step(), node.value());
+				node = node.right;
+				low = null;
+			}
+		}
+	}
+
+	/**
+	 * Running prefix sum, and the best one seen with where it first happened
+	 */
+	private static class Peak<V> {
+		int sum;
+		int best;
+		V bestAt;
+
+		void add(int stepSum, int maxPrefix, V at) {
+			if (sum + maxPrefix > best) {
+				best = sum + maxPrefix;
+				bestAt = at;
+			}
+			sum += stepSum;
+		}
+	}
+
+	/**
+	 * Index a new element; the caller guarantees it is not already present
+	 */
+	void add(Interval<V> element) {
+		root = add(root, new EndpointNode<V>(element, false));
+		root = add(root, new EndpointNode<V>(element, true));
+	}
+
+	private EndpointNode<V> add(EndpointNode<V> node, EndpointNode<V> entry) {
+		if (node == null) {
+			update(entry);
+			return entry;
+		}
+		if (order.compare(entry, node) < 0) {
+			node.left = add(node.left, entry);
+		} else {
+			node.right = add(node.right, entry);
+		}
+		return rebalance(node);
+	}
+
+	/**
+	 * Drop an element; the caller guarantees it is present
+	 */
+	void remove(Interval<V> element) {
+		root = remove(root, element, false);
+		root = remove(root, element, true);
+	}
+
+	private EndpointNode<V> remove(EndpointNode<V> node, Interval<V> element, boolean upper) {
+		if (node == null)
+			return null;
+		int compare = compare(element, upper, node);
+		if (compare < 0) {
+			node.left = remove(node.left, element, upper);
+		} else if (compare > 0) {
+			node.right = remove(node.right, element, upper);
+		} else {
+			if (node.left == null)
+				return node.right;
+			if (node.right == null)
+				return node.left;
+			// Replace with the successor, then delete the successor from the right side
+			EndpointNode<V> successor = node.right;
+			while (successor.left != null) {
+				successor = successor.left;
+			}
+			node.object = successor.object;
+			node.upper = successor.upper;
+			node.right = remove(node.right, successor.object, successor.upper);
+		}
+		return rebalance(node);
+	}
+
+	private static int uppers(EndpointNode<?> node) {
+		return node != null ? node.uppers : 0;
+	}
+
+	private static int sum(EndpointNode<?> node) {
+		return node != null ? node.sum : 0;
+	}
+
+	private static int height(EndpointNode<?> node) {
+		return node != null ? node.height : 0;
+	}
+
+	private static <V extends Comparable<V>> void update(EndpointNode<V> node) {
+		node.height = Math.max(height(node.left), height(node.right)) + 1;
+		node.uppers = uppers(node.left) + uppers(node.right) + (node.upper ? 1 : 0);
+		node.sum = sum(node.left) + node.step() + sum(node.right);
+
+		// Best prefix ends in the left side, at this entry, or in the right side; earliest wins
+		int before = sum(node.left);
+		int best = before + node.step();
+		V at = node.value();
+		if (node.left != null && node.left.maxPrefix >= best) {
+			best = node.left.maxPrefix;
+			at = node.left.peakAt;
+		}
+		if (node.right != null && before + node.step() + node.right.maxPrefix > best) {
+			best = before + node.step() + node.right.maxPrefix;
+			at = node.right.peakAt;
+		}
+		node.maxPrefix = best;
+		node.peakAt = at;
+	}
+
+	private static <V extends Comparable<V>> EndpointNode<V> rebalance(EndpointNode<V> node) {
+		update(node);
+		int balance = height(node.right) - height(node.left);
+		if (balance < -1) {
+			if (height(node.left.right) > height(node.left.left)) {
+				node.left = rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		} else if (balance > 1) {
+			if (height(node.right.left) > height(node.right.right)) {
+				node.right = rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private static <V extends Comparable<V>> EndpointNode<V> rotateRight(EndpointNode<V> node) {
+		EndpointNode<V> y = node.left;
+		node.left = y.right;
+		y.right = node;
+		update(node);
+		update(y);
+		return y;
+	}
+
+	private static <V extends Comparable<V>> EndpointNode<V> rotateLeft(EndpointNode<V> node) {
+		EndpointNode<V> y = node.right;
+		node.right = y.left;
+		y.left = node;
+		update(node);
+		update(y);
+		return y;
+	}
+
+	static class EndpointNode<V extends Comparable<V>> {
+		EndpointNode<V> left;
+		EndpointNode<V> right;
+		Interval<V> object;
+		boolean upper; // which end of object this entry is
+		int height = 1;
+		int uppers; // Number of upper end points in this subtree
+		int sum; // Sum of the steps in this subtree
+		int maxPrefix; // Best sum of a non empty prefix of this subtree's steps
+		V peakAt; // End point value where maxPrefix is first reached
+
+		EndpointNode(Interval<V> object, boolean upper) {
+			this.object = object;
+			this.upper = upper;
+		}
+
+		V value() {
+			return upper ? object.getUpper() : object.getLower();
+		}
+
+		int step() {
+			return upper ? -1 : 1;
+		}
+	}
+}
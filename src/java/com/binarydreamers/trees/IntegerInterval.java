@@ -50,4 +50,11 @@ public class IntegerInterval implements Interval<Integer> {
 			return value;
 		}
 	};
-}
\ No newline at end of file
+
+	static final Metric<Integer> metric = new Metric<Integer>() {
+		@Override
+		public double distance(Integer from, Integer to) {
+			return Math.abs((double) to - (double) from);
+		}
+	};
+}
@@ -16,15 +16,24 @@ limitations under the License.
 package com.binarydreamers.trees;
 
 import java.lang.reflect.Array;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A binary tree that stores overlapping interval ranges. Implemented as an AVL tree (better searches).
@@ -32,6 +41,19 @@ import java.util.SortedSet;
  *        by Thomas H. Cormen, Charles E. leiserson,
  *           Ronald L. Rivest, Clifford Stein.
  *        chapter 13.2
+ *
+ * Thread safety: the tree is not synchronized. Once it is no longer being modified, any number of
+ * threads may call the read operations at once: contains(), the searchInterval(), stab() and
+ * searchNearest() families, searchIntervals(), rank(), select(), first(), last(), size(),
+ * toArray() and iteration (including the sorted views), and countOverlapping() and maxDepth()
+ * once enableDepthIndex() has been called. Any add(), remove() or clear() needs external
+ * synchronization against every reader; iterators fail fast on a best effort basis only.
+ * ConcurrentIntervalTree wraps a tree for concurrent readers and writers;
+ * ConcurrentIntervalSkipList is lock free, for when the writers are many.
+ *
+ * Memory: besides max, every node keeps minUpper, minLower and size for the containment, gap and
+ * rank searches, about 12 bytes more per node than max alone. Trees built with a Metric or an
+ * Aggregate use a larger node, with the gap bound and the aggregate, another 12 or more.
  * @author John Thomas McDole
  * @param <T>
  */
@@ -40,10 +62,29 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	private int count;
 	private Comparator<Interval<V>> comparator;
 	private transient int modCount = 0; // Modification count to the tree, monotonically increasing
+	private EndpointTree<V> endpoints; // Set by enableDepthIndex(); null until then
+	private Metric<V> metric; // Optional; needed by the distance based searches
+	private Aggregate<V, Object> aggregator; // Optional; kept in AugmentedNode.aggregate
 
 	IntervalTree(Comparator<Interval<V>> comparator) {
 		this.comparator = comparator;
 	}
+
+	IntervalTree(Comparator<Interval<V>> comparator, Metric<V> metric) {
+		this.comparator = comparator;
+		this.metric = metric;
+	}
+
+	/**
+	 * A tree that also keeps aggregate for every subtree, for aggregate(Interval, Aggregate).
+	 * metric may be null.
+	 */
+	@SuppressWarnings("unchecked")
+	IntervalTree(Comparator<Interval<V>> comparator, Metric<V> metric, Aggregate<V, ?> aggregate) {
+		this.comparator = comparator;
+		this.metric = metric;
+		this.aggregator = (Aggregate<V, Object>) aggregate;
+	}
 	
 	IntervalTree() {
 		this.comparator = new Comparator<Interval<V>>() {
@@ -63,15 +104,23 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	public boolean add(Interval<V> element) {
 		IntervalNode<V> x = root;
 
-		IntervalNode<V> node = new IntervalNode<V>();
+		IntervalNode<V> node = newNode();
 		V max = element.getUpper();
 		node.max = max; // Initial value is always ourself.
+		node.minUpper = max;
 		node.object = element;
+		node.minLower = element.getLower();
+		if (aggregator != null) {
+			augments(node).aggregate = aggregator.lift(element);
+		}
 
 		if (root == null) {
 			root = node;
 			++count;
 			++modCount;
+			if (endpoints != null) {
+				endpoints.add(element);
+			}
 			return true;
 		}
 
@@ -80,9 +129,18 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			if (node.max.compareTo(x.max) > 0) {
 				x.max = max;
 			}
+			if (node.minUpper.compareTo(x.minUpper) < 0) {
+				x.minUpper = max;
+			}
+
+			// Counted on the way down; taken back if it turns out to be a duplicate
+			x.size++;
 
 			int compare = comparator.compare(element, x.object);
 			if (0 == compare) {
+				for (IntervalNode<V> p = x; p != null; p = p.parent) {
+					p.size--;
+				}
 				return false;
 			} else if (compare < 0) {
 				if (x.left == null) {
@@ -104,6 +162,15 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		}
 
 		++modCount;
+		if (endpoints != null) {
+			endpoints.add(element);
+		}
+
+		// A new leftmost element lowers minLower up the run of left links above it
+		for (IntervalNode<V> c = node, p = x; p != null && p.left == c; c = p, p = p.parent) {
+			p.minLower = node.minLower;
+		}
+		IntervalNode<V> inserted = node;
 
 		/*
 			AVL balancing act (for height balanced trees)
@@ -135,17 +202,17 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 					node = node.parent;
 
 					// Update node's new max; but recalculate the children
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 				} else {
 					// Double (Right/Left) rotation
 					// node will now be old node.right.left
 					rotateRightLeft(node);
 					node = node.parent; // Update to new parent (old grandchild)
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 					if (node.balanceFactor == 1) {
 						node.right.balanceFactor = 0;
 						node.left.balanceFactor = -1;
@@ -167,17 +234,17 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 					node = node.parent;
 
 					// Update node's new max; but recalculate the children
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 				} else {
 					// Double (Left/Right) rotation
 					// node will now be old node.left.right
 					rotateLeftRight(node);
 					node = node.parent;
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 					if (node.balanceFactor == -1) {
 						node.right.balanceFactor = 1;
 						node.left.balanceFactor = 0;
@@ -193,10 +260,50 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 				break; // out of loop, we're balanced
 			}
 		} // end of while(balancing)
+		recalculateAugments(inserted);
 		count++;
 		return true;
 	}
 
+	/**
+	 * The aggregates and gap bounds from node up to the root, after an add. They aren't kept on
+	 * the way down like max, and the gap bound depends on the shape of the subtree, so a rotation
+	 * changes it for every ancestor; one pass once rebalancing is done covers both. Nothing to do
+	 * without a Metric or an Aggregate.
+	 */
+	private void recalculateAugments(IntervalNode<V> node) {
+		if (metric == null && aggregator == null)
+			return;
+		// The new leaf is already right; start at its parent
+		for (node = node.parent; node != null; node = node.parent) {
+			if (aggregator != null) {
+				augments(node).aggregate = aggregateOf(node);
+			}
+			if (metric != null) {
+				augments(node).gap = gapBound(node);
+			}
+		}
+	}
+
+	/**
+	 * Gap bounds from node up to the root, after a remove; see recalculateAugments(). Nothing to
+	 * do without a Metric.
+	 */
+	private void recalculateGaps(IntervalNode<V> node) {
+		if (metric == null)
+			return;
+		for (; node != null; node = node.parent) {
+			augments(node).gap = gapBound(node);
+		}
+	}
+
+	/**
+	 * The root node, for wrappers that walk the tree themselves
+	 */
+	IntervalNode<V> root() {
+		return root;
+	}
+
 	/**
 	 * Test to see if an element is stored in the tree
 	 */
@@ -229,26 +336,109 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	}
 
 	/**
-	 * Make sure the node has the right maximum of the subtree
+	 * Make sure the node's augmented values match its children
 	 * node.max = MAX( node.high, node.left.max, node.right.max );
+	 * node.size = node.left.size + node.right.size + 1;
 	 */
-	private void recalculateMax(IntervalNode<V> node) {
+	private void recalculate(IntervalNode<V> node) {
 		V max;
 		if(node == null) return;
 		if (node.left == node.right && node.right == null) {
 			node.max = node.object.getUpper();
+			node.minUpper = node.max;
+			node.minLower = node.object.getLower();
+			node.size = 1;
+			if (metric != null) {
+				augments(node).gap = 0;
+			}
+			if (aggregator != null) {
+				augments(node).aggregate = aggregator.lift(node.object);
+			}
 			return;
 		} else if (node.left == null) {
 			max = node.right.max;
+			node.size = node.right.size + 1;
 		} else if (node.right == null) {
 			max = node.left.max;
+			node.size = node.left.size + 1;
 		} else {
 			/* Get the best of the children */
 			max = node.left.max.compareTo(node.right.max) > 0 ? node.left.max : node.right.max;
+			node.size = node.left.size + node.right.size + 1;
 		}
 
 		/* And pit that against our interval */
 		node.max = node.object.getUpper().compareTo(max) > 0 ? node.object.getUpper() : max;  
+
+		/* Same again for the smallest upper bound */
+		V minUpper = node.object.getUpper();
+		if (node.left != null && node.left.minUpper.compareTo(minUpper) < 0)
+			minUpper = node.left.minUpper;
+		if (node.right != null && node.right.minUpper.compareTo(minUpper) < 0)
+			minUpper = node.right.minUpper;
+		node.minUpper = minUpper;
+
+		node.minLower = node.left != null ? node.left.minLower : node.object.getLower();
+		if (metric != null) {
+			augments(node).gap = gapBound(node);
+		}
+		if (aggregator != null) {
+			augments(node).aggregate = aggregateOf(node);
+		}
+	}
+
+	/**
+	 * A node with room for the optional augmentations, when this tree keeps any
+	 */
+	private IntervalNode<V> newNode() {
+		return metric != null || aggregator != null ? new AugmentedNode<V>() : new IntervalNode<V>();
+	}
+
+	private static <V extends Comparable<V>> AugmentedNode<V> augments(IntervalNode<V> node) {
+		return (AugmentedNode<V>) node;
+	}
+
+	/**
+	 * Combine the children's aggregates around this node's, in tree order
+	 */
+	private Object aggregateOf(IntervalNode<V> node) {
+		Object aggregate = aggregator.lift(node.object);
+		if (node.left != null)
+			aggregate = aggregator.combine(augments(node.left).aggregate, aggregate);
+		if (node.right != null)
+			aggregate = aggregator.combine(aggregate, augments(node.right).aggregate);
+		return aggregate;
+	}
+
+	/**
+	 * Longest gap between the elements of the subtree, where the gap before an element runs from
+	 * the furthest upper bound before it *in the subtree*. Elements outside the subtree can only
+	 * shrink a gap, so this is an upper bound on the real gaps, and exact when elements don't
+	 * overlap.
+	 */
+	private double gapBound(IntervalNode<V> node) {
+		double gap = 0;
+		V reach = node.object.getUpper();
+		if (node.left != null) {
+			gap = Math.max(augments(node.left).gap, gapBetween(node.left.max, node.object.getLower()));
+			if (node.left.max.compareTo(reach) > 0)
+				reach = node.left.max;
+		}
+		if (node.right != null) {
+			gap = Math.max(gap, Math.max(augments(node.right).gap, gapBetween(reach, node.right.minLower)));
+		}
+		return gap;
+	}
+
+	private double gapBetween(V from, V to) {
+		return from.compareTo(to) < 0 ? metric.distance(from, to) : 0;
+	}
+
+	/**
+	 * Number of elements in the subtree (0 for null)
+	 */
+	private static int size(IntervalNode<?> node) {
+		return node == null ? 0 : node.size;
 	}
 
 	/**
@@ -405,6 +595,61 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		return node.parent;
 	}
 
+	/**
+	 * Number of elements in the tree strictly less than element; element does not need to be in
+	 * the tree. O(log n) thanks to the subtree sizes.
+	 */
+	public int rank(Interval<V> element) {
+		return countBelow(element, false);
+	}
+
+	/**
+	 * Number of elements less than element, plus the element itself if inclusive and present
+	 */
+	int countBelow(Interval<V> element, boolean inclusive) {
+		int rank = 0;
+		IntervalNode<V> x = root;
+		while (x != null) {
+			int compare = comparator.compare(element, x.object);
+			if (compare == 0) {
+				return rank + size(x.left) + (inclusive ? 1 : 0);
+			} else if (compare < 0) {
+				x = x.left;
+			} else {
+				rank += size(x.left) + 1;
+				x = x.right;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Return the element at index (0 based) in tree order. O(log n) thanks to the subtree sizes.
+	 */
+	public Interval<V> select(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		return selectNode(index).object;
+	}
+
+	/**
+	 * Node at index in tree order; index must be in [0, count)
+	 */
+	IntervalNode<V> selectNode(int index) {
+		IntervalNode<V> x = root;
+		while (true) {
+			int leftSize = size(x.left);
+			if (index < leftSize) {
+				x = x.left;
+			} else if (index == leftSize) {
+				return x;
+			} else {
+				index -= leftSize + 1;
+				x = x.right;
+			}
+		}
+	}
+
 	/**
 	 * A node in the interval tree
 	 */
@@ -415,18 +660,142 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		int balanceFactor;
 		Interval<V> object;
 		V max;
+		V minUpper; // Smallest upper bound in this subtree
+		V minLower; // Smallest lower bound in this subtree (the leftmost element's)
+		int size = 1; // Number of elements in this subtree
 
 		@Override
 		public String toString() {
 			boolean leftSet = left != null;
 			boolean rightSet = right != null;
 			return "(b:" + balanceFactor + " o:" + object + " l:" + leftSet + " r:" + rightSet
-					+ " max:" + max + ")";
+					+ " max:" + max + " minUpper:" + minUpper + " size:" + size + ")";
+		}
+	}
+
+	/**
+	 * A node of a tree with a Metric or an Aggregate; trees without them don't pay for the room
+	 */
+	static class AugmentedNode<V extends Comparable<V>> extends IntervalNode<V> {
+		double gap; // Bound on the longest free gap inside this subtree; kept only with a Metric
+		Object aggregate; // The tree's Aggregate over this subtree, if it has one
+	}
+
+	/**
+	 * Build a tree from elements already sorted by the natural interval order (lower, then upper)
+	 * in a single linear pass. Duplicates are dropped.
+	 *
+	 * @throws IllegalArgumentException if the elements are not sorted
+	 */
+	public static <V extends Comparable<V>> IntervalTree<V> fromSorted(
+			Collection<? extends Interval<V>> sorted) {
+		IntervalTree<V> tree = new IntervalTree<V>();
+		tree.buildFromSorted(sorted);
+		return tree;
+	}
+
+	/**
+	 * Build a tree from elements already sorted by comparator in a single linear pass.
+	 * Duplicates are dropped.
+	 *
+	 * @throws IllegalArgumentException if the elements are not sorted
+	 */
+	public static <V extends Comparable<V>> IntervalTree<V> fromSorted(
+			Collection<? extends Interval<V>> sorted, Comparator<Interval<V>> comparator) {
+		IntervalTree<V> tree = new IntervalTree<V>(comparator);
+		tree.buildFromSorted(sorted);
+		return tree;
+	}
+
+	private void buildFromSorted(Collection<? extends Interval<V>> sorted) {
+		Interval<V>[] elements = toIntervalArray(sorted);
+		if (!isSorted(elements)) {
+			throw new IllegalArgumentException("Elements are not sorted by the tree comparator");
+		}
+		buildBalanced(elements);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <V extends Comparable<V>> Interval<V>[] toIntervalArray(
+			Collection<? extends Interval<V>> elements) {
+		return elements.toArray(new Interval[elements.size()]);
+	}
+
+	/**
+	 * True if every element is >= the one before it
+	 */
+	private boolean isSorted(Interval<V>[] elements) {
+		for (int i = 1; i < elements.length; i++) {
+			if (comparator.compare(elements[i - 1], elements[i]) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replace the (empty) tree with a perfectly balanced one holding the sorted elements.
+	 */
+	private void buildBalanced(Interval<V>[] elements) {
+		// Squeeze out duplicates first so the build only sees strictly increasing elements
+		int size = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if (size == 0 || comparator.compare(elements[size - 1], elements[i]) != 0) {
+				elements[size++] = elements[i];
+			}
+		}
+		root = buildBalanced(elements, 0, size, null);
+		count = size;
+		++modCount;
+		if (endpoints != null) {
+			endpoints = new EndpointTree<V>(this);
 		}
 	}
 
+	/**
+	 * Build the subtree for elements[lo, hi); the middle element becomes the subtree root.
+	 * Because the halves differ in size by at most one, their heights do too.
+	 */
+	private IntervalNode<V> buildBalanced(Interval<V>[] elements, int lo, int hi,
+			IntervalNode<V> parent) {
+		if (lo >= hi)
+			return null;
+		int mid = (lo + hi) >>> 1;
+		IntervalNode<V> node = newNode();
+		node.object = elements[mid];
+		node.parent = parent;
+		node.left = buildBalanced(elements, lo, mid, node);
+		node.right = buildBalanced(elements, mid + 1, hi, node);
+		node.balanceFactor = balancedHeight(hi - mid - 1) - balancedHeight(mid - lo);
+		recalculate(node);
+		return node;
+	}
+
+	/**
+	 * Height of a tree of size elements built by buildBalanced()
+	 */
+	private static int balancedHeight(int size) {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * Add all the elements. When the tree is empty and the elements come sorted, the tree is
+	 * bulk built in linear time instead of one add() at a time.
+	 */
 	@Override
 	public boolean addAll(Collection<? extends Interval<V>> arg0) {
+		if (root == null && arg0.size() > 1) {
+			Interval<V>[] elements = toIntervalArray(arg0);
+			if (isSorted(elements)) {
+				buildBalanced(elements);
+				return count > 0;
+			}
+			boolean modified = false;
+			for (Interval<V> ele : elements) {
+				modified = add(ele) ? true : modified;
+			}
+			return modified;
+		}
 		boolean modified = false;
 		for(Interval<V> ele : arg0) {
 			modified = add(ele) ? true : modified;
@@ -438,6 +807,9 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	public void clear() {
 		count = 0;
 		root = null;
+		if (endpoints != null) {
+			endpoints = new EndpointTree<V>(this);
+		}
 	}
 
 	@Override
@@ -499,6 +871,86 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		};
 	}
 
+	/**
+	 * Splits by subtree size rather than by copying into arrays: every split finds the middle
+	 * element with selectNode(), so both halves are exactly sized. Fails fast like iterator().
+	 */
+	@Override
+	public Spliterator<Interval<V>> spliterator() {
+		return spliterator(0, count);
+	}
+
+	/**
+	 * Spliterator over the elements at indexes [from, to) in tree order
+	 */
+	Spliterator<Interval<V>> spliterator(int from, int to) {
+		return new NodeSpliterator(from < to ? selectNode(from) : null, from, to);
+	}
+
+	private class NodeSpliterator implements Spliterator<Interval<V>> {
+		private IntervalNode<V> current;
+		private int index; // index of current in tree order
+		private final int fence; // index to stop at
+		private final int modCountGaurd = modCount;
+
+		NodeSpliterator(IntervalNode<V> current, int index, int fence) {
+			this.current = current;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Interval<V>> action) {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			if (index >= fence)
+				return false;
+			Interval<V> element = current.object;
+			current = ++index < fence ? successor(current) : null;
+			action.accept(element);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Interval<V>> action) {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			for (; index < fence; index++) {
+				action.accept(current.object);
+				current = successor(current);
+			}
+			current = null;
+		}
+
+		@Override
+		public Spliterator<Interval<V>> trySplit() {
+			int mid = (index + fence) >>> 1;
+			if (mid <= index)
+				return null;
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			Spliterator<Interval<V>> prefix = new NodeSpliterator(current, index, mid);
+			current = selectNode(mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL;
+		}
+
+		@Override
+		public Comparator<? super Interval<V>> getComparator() {
+			return comparator;
+		}
+	}
+
 	@Override
 	public boolean remove(Object arg0) {
 		@SuppressWarnings("unchecked")
@@ -516,6 +968,9 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 
 		++modCount;
 		--count;
+		if (endpoints != null) {
+			endpoints.remove(node.object);
+		}
 
 		/*
 		 * JTM - if you read wikipedia, it states remove the node if its a leaf,
@@ -595,10 +1050,10 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		node.left = node.right = node.parent = null;
 		node.object = null;
 
-		// Recalculate max values all the way to the top.
+		// Recalculate max values and sizes all the way to the top.
 		node = w;
 		while (node != null) {
-			recalculateMax(node);
+			recalculate(node);
 			node = node.parent;
 		}
 
@@ -614,9 +1069,9 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 				if (node.right.balanceFactor == -1) {
 					rotateRightLeft(node);
 					node = node.parent; // old grand-child!
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 					if (node.balanceFactor == 1) {
 						node.right.balanceFactor = 0;
 						node.left.balanceFactor = -1;
@@ -631,9 +1086,10 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 				} else {
 					// single left-rotation
 					rotateLeft(node);
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
+					recalculate(node.parent); // the new subtree root
 					if (node.parent.balanceFactor == 0) {
 						node.parent.balanceFactor = -1;
 						node.balanceFactor = 1;
@@ -650,9 +1106,9 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 				if (node.left.balanceFactor == 1) {
 					rotateLeftRight(node);
 					node = node.parent; // old grand-child!
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
 					if (node.balanceFactor == -1) {
 						node.right.balanceFactor = 1;
 						node.left.balanceFactor = 0;
@@ -666,9 +1122,10 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 					node.balanceFactor = 0;
 				} else {
 					rotateRight(node);
-					recalculateMax(node.left);
-					recalculateMax(node.right);
-					recalculateMax(node);
+					recalculate(node.left);
+					recalculate(node.right);
+					recalculate(node);
+					recalculate(node.parent); // the new subtree root
 					if (node.parent.balanceFactor == 0) {
 						node.parent.balanceFactor = 1;
 						node.balanceFactor = -1;
@@ -697,6 +1154,7 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			}
 			node = node.parent;
 		}
+		recalculateGaps(w);
 	}
 
 	@Override
@@ -729,7 +1187,7 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	@Override
 	public Object[] toArray() {
 		Object[] array = new Object[count];
-		IntervalNode<V> x = minimumNode(root);
+		IntervalNode<V> x = root != null ? minimumNode(root) : null;
 		int i = 0;
 		while(x!=null) {
 			array[i++] = x.object;
@@ -835,12 +1293,12 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 
 		private boolean outsideRange(Interval<T> element) {
 			if(fromElement != null) {
-				if (backingSet.comparator.compare(element, fromElement) < (fromInclusive ? 1 : 0)) {
+				if (backingSet.comparator.compare(element, fromElement) < (fromInclusive ? 0 : 1)) {
 					return true;
 				}
 			}
 			if (toElement != null) {
-				if (backingSet.comparator.compare(toElement, element) < (toInclusive ? 1 : 0)) {
+				if (backingSet.comparator.compare(toElement, element) < (toInclusive ? 0 : 1)) {
 					return true;
 				}
 			}
@@ -886,7 +1344,7 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 
 		@Override
 		public boolean isEmpty() {
-			return firstNode() != null;
+			return size() == 0;
 		}
 
 		@Override
@@ -941,6 +1399,14 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			};
 		}
 
+		@Override
+		public Spliterator<Interval<T>> spliterator() {
+			int below = fromElement == null ? 0 : backingSet.countBelow(fromElement, !fromInclusive);
+			int upTo = toElement == null ? backingSet.count
+					: backingSet.countBelow(toElement, toInclusive);
+			return backingSet.spliterator(below, Math.max(below, upTo));
+		}
+
 		@Override
 		public boolean removeAll(Collection<?> arg0) {
 			boolean changed = false;
@@ -964,19 +1430,15 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			return changed;
 		}
 
-		// Used for tracking size changes
-		int modCount = -1;
-		int size = 0;
-
+		/**
+		 * Difference of the bounds' ranks in the backing tree; O(log n)
+		 */
 		@Override
 		public int size() {
-			if(modCount != backingSet.modCount) {
-				size = 0;
-				for (@SuppressWarnings("unused") Interval<T> element : this) {
-					size++;
-				}
-			}
-			return size;
+			int below = fromElement == null ? 0 : backingSet.countBelow(fromElement, !fromInclusive);
+			int upTo = toElement == null ? backingSet.count
+					: backingSet.countBelow(toElement, toInclusive);
+			return Math.max(0, upTo - below);
 		}
 
 		@Override
@@ -1078,9 +1540,44 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			throw new IllegalStateException("Balance off; is:" + node.balanceFactor + " should:"
 					+ calcBalanc);
 		}
+		verifyAugmentation(node);
 		return Math.max(left, right) + 1;
 	}
 
+	/**
+	 * Verify the node's max and size agree with its (already verified) children
+	 */
+	private void verifyAugmentation(IntervalNode<V> node) {
+		V max = node.object.getUpper();
+		if (node.left != null && node.left.max.compareTo(max) > 0) max = node.left.max;
+		if (node.right != null && node.right.max.compareTo(max) > 0) max = node.right.max;
+		if (node.max.compareTo(max) != 0) {
+			throw new IllegalStateException("Max off; is:" + node.max + " should:" + max);
+		}
+		V minUpper = node.object.getUpper();
+		if (node.left != null && node.left.minUpper.compareTo(minUpper) < 0) minUpper = node.left.minUpper;
+		if (node.right != null && node.right.minUpper.compareTo(minUpper) < 0) minUpper = node.right.minUpper;
+		if (node.minUpper.compareTo(minUpper) != 0) {
+			throw new IllegalStateException("MinUpper off; is:" + node.minUpper + " should:" + minUpper);
+		}
+		V minLower = node.left != null ? node.left.minLower : node.object.getLower();
+		if (node.minLower.compareTo(minLower) != 0) {
+			throw new IllegalStateException("MinLower off; is:" + node.minLower + " should:" + minLower);
+		}
+		if (metric != null && augments(node).gap != gapBound(node)) {
+			throw new IllegalStateException("Gap off; is:" + augments(node).gap + " should:"
+					+ gapBound(node));
+		}
+		if (aggregator != null && !aggregateOf(node).equals(augments(node).aggregate)) {
+			throw new IllegalStateException("Aggregate off; is:" + augments(node).aggregate + " should:"
+					+ aggregateOf(node));
+		}
+		int size = size(node.left) + size(node.right) + 1;
+		if (node.size != size) {
+			throw new IllegalStateException("Size off; is:" + node.size + " should:" + size);
+		}
+	}
+
 	/**
 	 * Verify every node of the tree has the correct height
 	 *
@@ -1119,15 +1616,31 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 	 */
 	public List<Interval<V>> searchInterval(Interval<V> interval) {
 		List<Interval<V>> found = new ArrayList<Interval<V>>();
-		searchIntervalRecursive(interval, root, found);
+		searchIntervalRecursive(interval, root, found::add);
 		return found;
 	}
 
+	/**
+	 * Hand every element in the interval to sink, in tree order, without building a list.
+	 */
+	public void searchInterval(Interval<V> interval, Consumer<? super Interval<V>> sink) {
+		searchIntervalRecursive(interval, root, sink);
+	}
+
+	/**
+	 * Hand elements in the interval to visitor, in tree order, until it returns false.
+	 *
+	 * @return false if the visitor stopped the search early
+	 */
+	public boolean searchIntervalWhile(Interval<V> interval, Predicate<? super Interval<V>> visitor) {
+		return searchIntervalWhileRecursive(interval, root, visitor);
+	}
+
 	/**
 	 * Search each node, recursively matching against the search interval
 	 */
 	private void searchIntervalRecursive(Interval<V> interval, IntervalNode<V> node,
-			List<Interval<V>> storage) {
+			Consumer<? super Interval<V>> sink) {
 		if (node == null)
 			return;
 
@@ -1136,12 +1649,12 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 			return;
 
 		// left children
-		searchIntervalRecursive(interval, node.left, storage);
+		searchIntervalRecursive(interval, node.left, sink);
 
 		// Do we overlap? s.low <= n.high && n.low <= s.high; where s = interval, n = node
 		if (interval.getLower().compareTo(node.object.getUpper()) < 0
 				&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
-			storage.add(node.object);
+			sink.accept(node.object);
 		}
 
 		// if interval.high is to the left of the start of Node's interval, then no children to the
@@ -1151,48 +1664,1064 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		}
 
 		// else, search the right nodes as well
-		searchIntervalRecursive(interval, node.right, storage);
+		searchIntervalRecursive(interval, node.right, sink);
 	}
 
 	/**
-	 * Search the tree for the matching element, or the 'nearest' one.
+	 * Same walk as above, but unwinds as soon as the visitor returns false
 	 */
-	public Interval<V> searchNearestElement(Interval<V> element) {
-		return searchNearestElement(element, SearchNearest.SEARCH_NEAREST_ABSOLUTE);
-	}
+	private boolean searchIntervalWhileRecursive(Interval<V> interval, IntervalNode<V> node,
+			Predicate<? super Interval<V>> visitor) {
+		if (node == null || node.max.compareTo(interval.getLower()) < 0)
+			return true;
 
-	/**
-	 * Search the tree for the matching element, or the 'nearest' one.
-	 */
-	public Interval<V> searchNearestElement(Interval<V> element, SearchNearest nearestOption) {
-		IntervalNode<V> found = searchNearest(element, nearestOption);
-		if (found != null)
-			return found.object;
-		return null;
+		if (!searchIntervalWhileRecursive(interval, node.left, visitor))
+			return false;
+
+		if (interval.getLower().compareTo(node.object.getUpper()) < 0
+				&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
+			if (!visitor.test(node.object))
+				return false;
+		}
+
+		if (interval.getUpper().compareTo(node.object.getLower()) < 0) {
+			return true;
+		}
+
+		return searchIntervalWhileRecursive(interval, node.right, visitor);
 	}
 
 	/**
-	 * Controls the results for searchNearest()
+	 * Run a batch of searchInterval() queries in one walk of the tree. sink gets the index of the
+	 * query in queries and each element it overlaps; for any one query, elements arrive in tree
+	 * order. The queries are sorted by lower end point so that every node is visited once for the
+	 * whole batch, and the max pruning drops a whole suffix of queries with a binary search.
 	 */
-	public static enum SearchNearest {
-		SEARCH_NEAREST_ROUNDED_DOWN, // If result not found, always chose the lower element
-		SEARCH_NEAREST_ABSOLUTE,     // If result not found, chose the nearest based on comparison
-		SEARCH_NEAREST_ROUNDED_UP    // If result not found, always chose the higher element
+	public void searchIntervals(List<? extends Interval<V>> queries,
+			BiConsumer<Integer, ? super Interval<V>> sink) {
+		if (root == null || queries.isEmpty())
+			return;
+		new BatchSearch(queries, sink).search();
 	}
 
 	/**
-	 * Search the tree for the matching element, or the 'nearest' node.
+	 * State for one searchIntervals() walk. The queries still live at a node are kept as positions
+	 * into the sorted batch, in sorted order; the left child shares its parent's array (it only
+	 * ever needs a prefix of it), while the right child gets a filtered copy in a per depth buffer.
 	 */
-	protected IntervalNode<V> searchNearest(Interval<V> element, SearchNearest option) {
-		if (element == null)
-			return null;
-		IntervalNode<V> x = root;
-		if (x == null)
-			return null;
-		IntervalNode<V> previous = x;
-		int compare = 0;
-		while (x != null) {
-			previous = x;
+	private class BatchSearch {
+		private final Interval<V>[] queries; // sorted by lower end point
+		private final int[] order; // original index of each sorted query
+		private final BiConsumer<Integer, ? super Interval<V>> sink;
+		private int[][] buffers = new int[16][];
+
+		BatchSearch(List<? extends Interval<V>> batch, BiConsumer<Integer, ? super Interval<V>> sink) {
+			this.sink = sink;
+			final Interval<V>[] unsorted = toIntervalArray(batch);
+			Integer[] indexes = new Integer[unsorted.length];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = i;
+			}
+			Arrays.sort(indexes, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return unsorted[o1].getLower().compareTo(unsorted[o2].getLower());
+				}
+			});
+			queries = unsorted.clone();
+			order = new int[unsorted.length];
+			for (int i = 0; i < indexes.length; i++) {
+				order[i] = indexes[i];
+				queries[i] = unsorted[indexes[i]];
+			}
+		}
+
+		void search() {
+			int[] all = new int[queries.length];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			search(root, all, all.length, 0);
+		}
+
+		private void search(IntervalNode<V> node, int[] active, int length, int depth) {
+			while (node != null) {
+				// Queries starting after node.max can't match in this subtree; they're a suffix
+				length = cut(active, length, node.max);
+				if (length == 0)
+					return;
+				if (length == 1) {
+					// Nothing left to share; the plain search has less bookkeeping
+					final Integer index = order[active[0]];
+					searchIntervalRecursive(queries[active[0]], node, e -> sink.accept(index, e));
+					return;
+				}
+
+				search(node.left, active, length, depth + 1);
+
+				int[] right = buffer(depth, length);
+				int rightLength = 0;
+				for (int i = 0; i < length; i++) {
+					Interval<V> interval = queries[active[i]];
+					if (interval.getLower().compareTo(node.object.getUpper()) < 0
+							&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
+						sink.accept(order[active[i]], node.object);
+					}
+					// Same short cut as searchIntervalRecursive()
+					if (interval.getUpper().compareTo(node.object.getLower()) >= 0) {
+						right[rightLength++] = active[i];
+					}
+				}
+
+				node = node.right;
+				active = right;
+				length = rightLength;
+				depth++;
+			}
+		}
+
+		/**
+		 * Length of the prefix of active whose queries start at or before max
+		 */
+		private int cut(int[] active, int length, V max) {
+			int lo = 0, hi = length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (queries[active[mid]].getLower().compareTo(max) <= 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+
+		private int[] buffer(int depth, int length) {
+			if (depth >= buffers.length) {
+				buffers = Arrays.copyOf(buffers, depth * 2);
+			}
+			if (buffers[depth] == null || buffers[depth].length < length) {
+				buffers[depth] = new int[Math.max(length, queries.length >>> depth)];
+			}
+			return buffers[depth];
+		}
+	}
+
+	/**
+	 * Run a batch of searchInterval() queries on the common ForkJoinPool; see
+	 * searchIntervalsParallel(List, ForkJoinPool).
+	 */
+	public List<List<Interval<V>>> searchIntervalsParallel(List<? extends Interval<V>> queries) {
+		return searchIntervalsParallel(queries, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Run a batch of searchInterval() queries on pool. The batch is split into ranges, each range
+	 * runs as a searchIntervals() walk, and the result list for query i is element i of the
+	 * returned list, in tree order. All the result lists are allocated up front, so the workers never
+	 * share anything they write to. The tree must not be modified while this runs.
+	 */
+	public List<List<Interval<V>>> searchIntervalsParallel(List<? extends Interval<V>> queries,
+			ForkJoinPool pool) {
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<Interval<V>>[] results = new List[queries.size()];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = new ArrayList<Interval<V>>();
+		}
+		// A few ranges per worker to even out the load, but big enough to share the walk
+		int threshold = Math.max(1024, queries.size() / (pool.getParallelism() * 4));
+		pool.invoke(new ParallelSearch(queries, results, 0, results.length, threshold));
+		return Arrays.asList(results);
+	}
+
+	private class ParallelSearch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<? extends Interval<V>> queries;
+		private final List<Interval<V>>[] results;
+		private final int from, to, threshold;
+
+		ParallelSearch(List<? extends Interval<V>> queries, List<Interval<V>>[] results, int from,
+				int to, int threshold) {
+			this.queries = queries;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= threshold) {
+				searchIntervals(queries.subList(from, to), (index, e) -> results[from + index].add(e));
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ParallelSearch(queries, results, from, mid, threshold),
+					new ParallelSearch(queries, results, mid, to, threshold));
+		}
+	}
+
+	/**
+	 * Hand sink the union of all elements as disjoint [lower, upper) pieces, in order. Elements that
+	 * overlap or touch are merged; empty elements (lower == upper) cover nothing.
+	 */
+	public void union(BiConsumer<? super V, ? super V> sink) {
+		Union union = new Union(null, null, sink);
+		for (Interval<V> element : this) {
+			union.accept(element);
+		}
+		union.finish();
+	}
+
+	/**
+	 * Hand sink the union of the elements clipped to range, as disjoint pieces in order. Only the
+	 * elements searchInterval(range) would find are visited.
+	 */
+	public void union(Interval<V> range, BiConsumer<? super V, ? super V> sink) {
+		Union union = new Union(range.getLower(), range.getUpper(), sink);
+		searchIntervalRecursive(range, root, union);
+		union.finish();
+	}
+
+	/**
+	 * Hand sink the pieces of range that no element covers, in order.
+	 */
+	public void gaps(Interval<V> range, BiConsumer<? super V, ? super V> sink) {
+		Gaps gaps = new Gaps(range.getLower(), sink);
+		union(range, gaps);
+		gaps.accept(range.getUpper(), range.getUpper());
+	}
+
+	/**
+	 * Turns union pieces into the space between them, starting from cursor
+	 */
+	private class Gaps implements BiConsumer<V, V> {
+		private final BiConsumer<? super V, ? super V> sink;
+		private V cursor;
+
+		Gaps(V cursor, BiConsumer<? super V, ? super V> sink) {
+			this.cursor = cursor;
+			this.sink = sink;
+		}
+
+		@Override
+		public void accept(V lower, V upper) {
+			if (cursor.compareTo(lower) < 0) {
+				sink.accept(cursor, lower);
+			}
+			cursor = upper;
+		}
+	}
+
+	/**
+	 * Total length covered by at least one element, measured with the tree's Metric.
+	 *
+	 * @throws IllegalStateException if the tree was built without a Metric
+	 */
+	public double coveredLength() {
+		final double[] length = new double[1];
+		union(coverage(length));
+		return length[0];
+	}
+
+	/**
+	 * Length of range covered by at least one element, measured with the tree's Metric.
+	 *
+	 * @throws IllegalStateException if the tree was built without a Metric
+	 */
+	public double coveredLength(Interval<V> range) {
+		final double[] length = new double[1];
+		union(range, coverage(length));
+		return length[0];
+	}
+
+	private BiConsumer<V, V> coverage(final double[] length) {
+		if (metric == null)
+			throw new IllegalStateException("coveredLength() needs a tree built with a Metric");
+		return (lower, upper) -> length[0] += metric.distance(lower, upper);
+	}
+
+	/**
+	 * Merges elements arriving in lower end point order into disjoint pieces, clipped to
+	 * [low, high) when those are set.
+	 */
+	private class Union implements Consumer<Interval<V>> {
+		private final V low, high;
+		private final BiConsumer<? super V, ? super V> sink;
+		private V start, end; // piece being grown; null until the first element
+
+		Union(V low, V high, BiConsumer<? super V, ? super V> sink) {
+			this.low = low;
+			this.high = high;
+			this.sink = sink;
+		}
+
+		@Override
+		public void accept(Interval<V> element) {
+			V lower = element.getLower();
+			V upper = element.getUpper();
+			if (low != null && lower.compareTo(low) < 0)
+				lower = low;
+			if (high != null && upper.compareTo(high) > 0)
+				upper = high;
+			if (lower.compareTo(upper) >= 0)
+				return;
+
+			if (start == null) {
+				start = lower;
+				end = upper;
+			} else if (lower.compareTo(end) <= 0) {
+				if (upper.compareTo(end) > 0)
+					end = upper;
+			} else {
+				sink.accept(start, end);
+				start = lower;
+				end = upper;
+			}
+		}
+
+		void finish() {
+			if (start != null) {
+				sink.accept(start, end);
+			}
+		}
+	}
+
+	/**
+	 * Overlap join: hand sink every pair (a, b), a from left and b from right, that overlap (same
+	 * rules as searchInterval()). Rather than one search per element, both trees are walked once in
+	 * order of lower end point, merged like a sweep line; each side keeps the elements that may
+	 * still overlap what's to come, so the cost is O(n + m + pairs) plus the live set scans. Both
+	 * trees must be ordered by lower end point first.
+	 */
+	public static <V extends Comparable<V>> void overlapJoin(IntervalTree<V> left,
+			IntervalTree<V> right, BiConsumer<? super Interval<V>, ? super Interval<V>> sink) {
+		joinRange(left, 0, left.count, new ArrayList<Interval<V>>(), right, 0, right.count,
+				new ArrayList<Interval<V>>(), sink);
+	}
+
+	/**
+	 * overlapJoin() split by lower end point into ranges that run in parallel on pool. A pair is
+	 * found by the range holding the larger of its two lower end points; each range starts with
+	 * the elements from before it that are still open at its start. sink is called from several
+	 * threads at once and must be thread safe. Neither tree may be modified while this runs.
+	 */
+	public static <V extends Comparable<V>> void overlapJoinParallel(final IntervalTree<V> left,
+			final IntervalTree<V> right,
+			final BiConsumer<? super Interval<V>, ? super Interval<V>> sink, ForkJoinPool pool) {
+		// Split points come from the bigger tree, a few ranges per worker
+		IntervalTree<V> bigger = left.count >= right.count ? left : right;
+		int parts = Math.min(pool.getParallelism() * 4, bigger.count);
+		List<V> splits = new ArrayList<V>();
+		for (int i = 1; i < parts; i++) {
+			V split = bigger.select((int) ((long) i * bigger.count / parts)).getLower();
+			if (splits.isEmpty() || splits.get(splits.size() - 1).compareTo(split) < 0) {
+				splits.add(split);
+			}
+		}
+
+		final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+		for (int i = 0; i <= splits.size(); i++) {
+			final V from = i > 0 ? splits.get(i - 1) : null;
+			final V to = i < splits.size() ? splits.get(i) : null;
+			tasks.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					joinRange(left, from == null ? 0 : left.countLowerBelow(from),
+							to == null ? left.count : left.countLowerBelow(to), openAt(left, from),
+							right, from == null ? 0 : right.countLowerBelow(from),
+							to == null ? right.count : right.countLowerBelow(to), openAt(right, from),
+							sink);
+				}
+			});
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/**
+	 * Elements starting before point and ending after it; they're still live when a sweep
+	 * reaches point. Empty for a null point (the start).
+	 */
+	private static <V extends Comparable<V>> ArrayList<Interval<V>> openAt(IntervalTree<V> tree,
+			final V point) {
+		final ArrayList<Interval<V>> open = new ArrayList<Interval<V>>();
+		if (point != null) {
+			tree.searchInterval(new Interval<V>() {
+				@Override
+				public V getLower() {
+					return point;
+				}
+
+				@Override
+				public V getUpper() {
+					return point;
+				}
+			}, open::add);
+		}
+		return open;
+	}
+
+	/**
+	 * Sweep the elements at indexes [leftFrom, leftTo) of left and [rightFrom, rightTo) of right,
+	 * taking whichever starts first (left on ties). Each element is checked against the other
+	 * side's live set, then joins its own.
+	 */
+	private static <V extends Comparable<V>> void joinRange(IntervalTree<V> left, int leftFrom,
+			int leftTo, ArrayList<Interval<V>> leftOpen, IntervalTree<V> right, int rightFrom,
+			int rightTo, ArrayList<Interval<V>> rightOpen,
+			BiConsumer<? super Interval<V>, ? super Interval<V>> sink) {
+		IntervalNode<V> a = leftFrom < leftTo ? left.selectNode(leftFrom) : null;
+		IntervalNode<V> b = rightFrom < rightTo ? right.selectNode(rightFrom) : null;
+		while (a != null || b != null) {
+			if (b == null || (a != null && a.object.getLower().compareTo(b.object.getLower()) <= 0)) {
+				sweep(a.object, rightOpen, sink, true);
+				leftOpen.add(a.object);
+				a = ++leftFrom < leftTo ? left.successor(a) : null;
+			} else {
+				sweep(b.object, leftOpen, sink, false);
+				rightOpen.add(b.object);
+				b = ++rightFrom < rightTo ? right.successor(b) : null;
+			}
+		}
+	}
+
+	/**
+	 * Pair element with every open element it overlaps. Open elements that end at or before
+	 * element starts can't overlap it or anything after it, so they are compacted out in the same
+	 * pass.
+	 */
+	private static <V extends Comparable<V>> void sweep(Interval<V> element,
+			ArrayList<Interval<V>> open, BiConsumer<? super Interval<V>, ? super Interval<V>> sink,
+			boolean elementIsLeft) {
+		int kept = 0;
+		for (int i = 0; i < open.size(); i++) {
+			Interval<V> other = open.get(i);
+			if (other.getUpper().compareTo(element.getLower()) <= 0)
+				continue;
+			open.set(kept++, other);
+			if (other.getLower().compareTo(element.getUpper()) < 0) {
+				if (elementIsLeft) {
+					sink.accept(element, other);
+				} else {
+					sink.accept(other, element);
+				}
+			}
+		}
+		open.subList(kept, open.size()).clear();
+	}
+
+	/**
+	 * Find every element containing point, i.e. lower <= point <= upper. Unlike a searchInterval()
+	 * with a degenerate interval, the end points themselves count.
+	 */
+	public List<Interval<V>> stab(V point) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		stabRecursive(point, root, found::add);
+		return found;
+	}
+
+	/**
+	 * Hand every element containing point to sink, in tree order.
+	 */
+	public void stab(V point, Consumer<? super Interval<V>> sink) {
+		stabRecursive(point, root, sink);
+	}
+
+	private void stabRecursive(V point, IntervalNode<V> node, Consumer<? super Interval<V>> sink) {
+		while (node != null) {
+			// Nothing in this subtree reaches the point
+			if (node.max.compareTo(point) < 0)
+				return;
+
+			stabRecursive(point, node.left, sink);
+
+			// This node, and everything to its right, starts after the point
+			if (point.compareTo(node.object.getLower()) < 0)
+				return;
+
+			if (point.compareTo(node.object.getUpper()) <= 0) {
+				sink.accept(node.object);
+			}
+			node = node.right;
+		}
+	}
+
+	/**
+	 * True if any element overlaps interval (same rules as searchInterval()). O(log n).
+	 */
+	public boolean overlapsAny(Interval<V> interval) {
+		return findAnyOverlap(interval) != null;
+	}
+
+	/**
+	 * Return some element overlapping interval, or null if there is none; not necessarily the
+	 * first in tree order. Walks a single path from the root, so O(log n) however many match.
+	 */
+	public Interval<V> findAnyOverlap(Interval<V> interval) {
+		IntervalNode<V> x = root;
+		while (x != null) {
+			if (interval.getLower().compareTo(x.object.getUpper()) < 0
+					&& x.object.getLower().compareTo(interval.getUpper()) < 0) {
+				return x.object;
+			}
+			// If something on the left ends after interval.low, it either overlaps or starts at or
+			// after interval.high, and then so does everything on the right; either way, go left.
+			if (x.left != null && x.left.max.compareTo(interval.getLower()) > 0) {
+				x = x.left;
+			} else {
+				x = x.right;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find every element containing interval, i.e. lower <= interval.lower and
+	 * interval.upper <= upper; end points count, like stab().
+	 */
+	public List<Interval<V>> searchContaining(Interval<V> interval) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		searchContainingRecursive(interval, root, found::add);
+		return found;
+	}
+
+	/**
+	 * Hand every element containing interval to sink, in tree order.
+	 */
+	public void searchContaining(Interval<V> interval, Consumer<? super Interval<V>> sink) {
+		searchContainingRecursive(interval, root, sink);
+	}
+
+	private void searchContainingRecursive(Interval<V> interval, IntervalNode<V> node,
+			Consumer<? super Interval<V>> sink) {
+		while (node != null) {
+			// Nothing in this subtree reaches interval.upper
+			if (node.max.compareTo(interval.getUpper()) < 0)
+				return;
+
+			searchContainingRecursive(interval, node.left, sink);
+
+			// This node, and everything to its right, starts after interval.lower
+			if (interval.getLower().compareTo(node.object.getLower()) < 0)
+				return;
+
+			if (interval.getUpper().compareTo(node.object.getUpper()) <= 0) {
+				sink.accept(node.object);
+			}
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Find every element inside interval, i.e. interval.lower <= lower and
+	 * upper <= interval.upper; end points count, like stab().
+	 */
+	public List<Interval<V>> searchContainedIn(Interval<V> interval) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		searchContainedInRecursive(interval, root, found::add);
+		return found;
+	}
+
+	/**
+	 * Hand every element inside interval to sink, in tree order.
+	 */
+	public void searchContainedIn(Interval<V> interval, Consumer<? super Interval<V>> sink) {
+		searchContainedInRecursive(interval, root, sink);
+	}
+
+	private void searchContainedInRecursive(Interval<V> interval, IntervalNode<V> node,
+			Consumer<? super Interval<V>> sink) {
+		while (node != null) {
+			// Everything in this subtree ends after interval.upper
+			if (node.minUpper.compareTo(interval.getUpper()) > 0)
+				return;
+
+			// This node, and everything to its left, starts before interval.lower
+			if (node.object.getLower().compareTo(interval.getLower()) < 0) {
+				node = node.right;
+				continue;
+			}
+
+			searchContainedInRecursive(interval, node.left, sink);
+
+			// This node, and everything to its right, starts after interval.upper
+			if (interval.getUpper().compareTo(node.object.getLower()) < 0)
+				return;
+
+			if (node.object.getUpper().compareTo(interval.getUpper()) <= 0) {
+				sink.accept(node.object);
+			}
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Build the end point index used by countOverlapping() and maxDepth(), O(n log n). From then
+	 * on add(), remove() and clear() keep it up to date, at O(log n) more per update and about as
+	 * much memory again as the tree. Calling it again does nothing.
+	 */
+	public void enableDepthIndex() {
+		if (endpoints == null) {
+			endpoints = new EndpointTree<V>(this);
+		}
+	}
+
+	/**
+	 * True once enableDepthIndex() has been called
+	 */
+	public boolean isDepthIndexEnabled() {
+		return endpoints != null;
+	}
+
+	private EndpointTree<V> depthIndex() {
+		if (endpoints == null) {
+			throw new IllegalStateException("Call enableDepthIndex() first");
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Count the elements searchInterval() would find, without visiting them. Every element that
+	 * starts before interval ends overlaps unless it also ends at or before interval starts, so
+	 * the count is the difference of two rank queries: one on this tree (ordered by lower end
+	 * point) and one on the end point index. O(log n) no matter how many elements match.
+	 *
+	 * Needs enableDepthIndex(). Assumes the comparator orders by lower end point first and that
+	 * elements have lower <= upper. An empty search interval (lower >= upper) falls back to a
+	 * search.
+	 */
+	public int countOverlapping(Interval<V> interval) {
+		EndpointTree<V> index = depthIndex();
+		if (interval.getLower().compareTo(interval.getUpper()) >= 0) {
+			final int[] found = new int[1];
+			searchIntervalRecursive(interval, root, e -> found[0]++);
+			return found[0];
+		}
+		return countLowerBelow(interval.getUpper()) - index.countAtMost(interval.getLower());
+	}
+
+	/**
+	 * The most elements active (lower <= x < upper) at any one point x of the half open range, and
+	 * the first such point. Uses the end point index from enableDepthIndex(), which keeps a
+	 * running count of active elements along the end points, so it is O(log n). For an empty
+	 * range, the depth at range.lower.
+	 */
+	public MaxDepth<V> maxDepth(Interval<V> range) {
+		return depthIndex().maxDepth(range.getLower(), range.getUpper());
+	}
+
+	/**
+	 * Result of maxDepth()
+	 */
+	public static class MaxDepth<V> {
+		private final int depth;
+		private final V point;
+
+		MaxDepth(int depth, V point) {
+			this.depth = depth;
+			this.point = point;
+		}
+
+		/**
+		 * Number of elements active at getPoint()
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * First point in the range where the depth peaks
+		 */
+		public V getPoint() {
+			return point;
+		}
+
+		@Override
+		public String toString() {
+			return "depth " + depth + " at " + point;
+		}
+	}
+
+	/**
+	 * First-fit allocation: the smallest start s >= from such that [s, s + length) overlaps no
+	 * element, measured with the tree's Metric. Subtrees whose longest inner gap is too short are
+	 * skipped whole, so when the elements don't overlap (the usual case for booked ranges) this is
+	 * O(log n). Overlapping elements can make the gap bounds optimistic and cost extra descents.
+	 *
+	 * @throws IllegalArgumentException if length is not positive (or is NaN)
+	 * @throws IllegalStateException if the tree was built without a Metric
+	 */
+	public V findFirstGap(V from, double length) {
+		if (!(length > 0))
+			throw new IllegalArgumentException("length must be positive; was " + length);
+		if (metric == null)
+			throw new IllegalStateException("findFirstGap() needs a tree built with a Metric");
+		FirstGap gap = new FirstGap(from, length);
+
+		// Everything starting at or before from pushes the first candidate to its upper bound
+		IntervalNode<V> x = root;
+		while (x != null) {
+			if (x.object.getLower().compareTo(from) <= 0) {
+				gap.reach(x.object.getUpper());
+				if (x.left != null)
+					gap.reach(x.left.max);
+				x = x.right;
+			} else {
+				x = x.left;
+			}
+		}
+
+		gap.search(root, true);
+		return gap.cursor;
+	}
+
+	/**
+	 * State for one findFirstGap() walk: cursor is the first point not covered by anything seen so
+	 * far, and the answer once a long enough gap follows it.
+	 */
+	private class FirstGap {
+		private final V from;
+		private final double length;
+		V cursor;
+
+		FirstGap(V from, double length) {
+			this.from = from;
+			this.length = length;
+			this.cursor = from;
+		}
+
+		void reach(V upper) {
+			if (upper.compareTo(cursor) > 0)
+				cursor = upper;
+		}
+
+		boolean fits(V lower) {
+			return cursor.compareTo(lower) <= 0 && metric.distance(cursor, lower) >= length;
+		}
+
+		/**
+		 * Walk the elements starting after from, in order; bounded is set while the subtree may
+		 * still hold elements starting at or before from. Returns true once cursor is the answer.
+		 */
+		boolean search(IntervalNode<V> node, boolean bounded) {
+			while (node != null) {
+				if (!bounded) {
+					if (fits(node.minLower))
+						return true;
+					if (augments(node).gap < length) {
+						// No room anywhere inside; skip the whole subtree
+						reach(node.max);
+						return false;
+					}
+				} else if (node.object.getLower().compareTo(from) <= 0) {
+					node = node.right;
+					continue;
+				}
+				if (search(node.left, bounded))
+					return true;
+				if (fits(node.object.getLower()))
+					return true;
+				reach(node.object.getUpper());
+				node = node.right;
+				bounded = false;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Combine the tree's Aggregate over the elements searchInterval(range) would find, in tree
+	 * order. Whole subtrees are taken from their stored aggregate when every element in them
+	 * overlaps, which is known from minUpper and the lower end points seen on the way down. When
+	 * the matching elements form one run in tree order (e.g. when no element nests inside another)
+	 * that's O(log n); elements that nest split the run, and each break costs another descent.
+	 * aggregate must be the Aggregate the tree was built with; it gives the result its type.
+	 *
+	 * @throws IllegalArgumentException if aggregate is not the tree's Aggregate
+	 * @throws IllegalStateException if the tree was built without an Aggregate
+	 */
+	public <A> A aggregate(Interval<V> range, Aggregate<V, A> aggregate) {
+		if (aggregator == null)
+			throw new IllegalStateException("aggregate() needs a tree built with an Aggregate");
+		if (aggregate != aggregator)
+			throw new IllegalArgumentException("Not the Aggregate this tree was built with");
+		// Every value in the walk came from aggregator, which is aggregate, so it is an A
+		@SuppressWarnings("unchecked")
+		A result = (A) aggregateRecursive(range, root, false);
+		return result;
+	}
+
+	/**
+	 * belowHigh is set when every element in the subtree is known to start before range.upper.
+	 */
+	private Object aggregateRecursive(Interval<V> range, IntervalNode<V> node, boolean belowHigh) {
+		Object aggregate = aggregator.identity();
+		while (node != null) {
+			// Nothing in this subtree ends after range.lower
+			if (node.max.compareTo(range.getLower()) <= 0)
+				break;
+			// Everything in this subtree overlaps
+			if (belowHigh && node.minUpper.compareTo(range.getLower()) > 0)
+				return aggregator.combine(aggregate, augments(node).aggregate);
+			// This node, and everything to its right, starts too late
+			if (!belowHigh && node.object.getLower().compareTo(range.getUpper()) >= 0) {
+				node = node.left;
+				continue;
+			}
+
+			// Everything to the left starts no later than this node, which starts in time
+			aggregate = aggregator.combine(aggregate, aggregateRecursive(range, node.left, true));
+			if (range.getLower().compareTo(node.object.getUpper()) < 0) {
+				aggregate = aggregator.combine(aggregate, aggregator.lift(node.object));
+			}
+			node = node.right;
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Number of elements whose lower end point is < point
+	 */
+	private int countLowerBelow(V point) {
+		int rank = 0;
+		IntervalNode<V> x = root;
+		while (x != null) {
+			if (x.object.getLower().compareTo(point) < 0) {
+				rank += size(x.left) + 1;
+				x = x.right;
+			} else {
+				x = x.left;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Lazily iterate the elements in the interval, in tree order. Walks with an explicit stack and
+	 * the same max pruning as searchInterval(), so only the nodes needed for the next result are
+	 * visited. Fails fast like iterator() if the tree is modified; remove() is not supported.
+	 */
+	public Iterator<Interval<V>> overlapIterator(Interval<V> interval) {
+		return new OverlapIterator(interval);
+	}
+
+	private class OverlapIterator implements Iterator<Interval<V>> {
+		private final Interval<V> interval;
+		// Nodes whose left side is done (or pruned), nearest on top
+		private final ArrayDeque<IntervalNode<V>> stack = new ArrayDeque<IntervalNode<V>>();
+		private int modCountGaurd = modCount;
+		private IntervalNode<V> next;
+
+		OverlapIterator(Interval<V> interval) {
+			this.interval = interval;
+			pushLeft(root);
+			next = advance();
+		}
+
+		/**
+		 * Push node and its left spine, stopping at subtrees whose max is below interval.low
+		 */
+		private void pushLeft(IntervalNode<V> node) {
+			while (node != null && node.max.compareTo(interval.getLower()) >= 0) {
+				stack.push(node);
+				node = node.left;
+			}
+		}
+
+		private IntervalNode<V> advance() {
+			while (!stack.isEmpty()) {
+				IntervalNode<V> node = stack.pop();
+				if (interval.getUpper().compareTo(node.object.getLower()) < 0) {
+					// This node, its right side and every ancestor left on the stack start after
+					// interval.high; nothing more can match.
+					stack.clear();
+					return null;
+				}
+				pushLeft(node.right);
+				if (interval.getLower().compareTo(node.object.getUpper()) < 0
+						&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			return next != null;
+		}
+
+		@Override
+		public Interval<V> next() {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			IntervalNode<V> found = next;
+			next = advance();
+			return found.object;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Spliterator over the elements in the interval, in tree order, for parallel streams of
+	 * searchInterval() results. It walks like overlapIterator(); a split hands the caller every
+	 * pending node except the shallowest, and keeps that node and its right subtree for itself.
+	 * Not SIZED, as the number of matches isn't known until the walk is done.
+	 */
+	public Spliterator<Interval<V>> overlapSpliterator(Interval<V> interval) {
+		OverlapSpliterator spliterator = new OverlapSpliterator(interval,
+				new ArrayDeque<IntervalNode<V>>(), null);
+		spliterator.pushLeft(root);
+		return spliterator;
+	}
+
+	private class OverlapSpliterator implements Spliterator<Interval<V>> {
+		private final Interval<V> interval;
+		// Each node is followed in tree order by its right subtree, then the node below it
+		private ArrayDeque<IntervalNode<V>> stack;
+		// If set, this node's right subtree belongs to another spliterator
+		private final IntervalNode<V> stopAfter;
+		private final int modCountGaurd = modCount;
+
+		OverlapSpliterator(Interval<V> interval, ArrayDeque<IntervalNode<V>> stack,
+				IntervalNode<V> stopAfter) {
+			this.interval = interval;
+			this.stack = stack;
+			this.stopAfter = stopAfter;
+		}
+
+		private void pushLeft(IntervalNode<V> node) {
+			while (node != null && node.max.compareTo(interval.getLower()) >= 0) {
+				stack.push(node);
+				node = node.left;
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Interval<V>> action) {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			while (!stack.isEmpty()) {
+				IntervalNode<V> node = stack.pop();
+				if (interval.getUpper().compareTo(node.object.getLower()) < 0) {
+					// Nothing from here on starts early enough
+					stack.clear();
+					return false;
+				}
+				if (node != stopAfter) {
+					pushLeft(node.right);
+				}
+				if (interval.getLower().compareTo(node.object.getUpper()) < 0
+						&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
+					action.accept(node.object);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<Interval<V>> trySplit() {
+			if (modCountGaurd != modCount)
+				throw new ConcurrentModificationException();
+			if (stack.size() > 1) {
+				IntervalNode<V> bottom = stack.removeLast();
+				Spliterator<Interval<V>> prefix = new OverlapSpliterator(interval, stack, null);
+				stack = new ArrayDeque<IntervalNode<V>>();
+				stack.push(bottom);
+				return prefix;
+			}
+			IntervalNode<V> node = stack.peek();
+			if (node == null || node == stopAfter)
+				return null;
+			// A lone node: hand it off by itself and keep its right subtree
+			stack.pop();
+			pushLeft(node.right);
+			ArrayDeque<IntervalNode<V>> single = new ArrayDeque<IntervalNode<V>>();
+			single.push(node);
+			return new OverlapSpliterator(interval, single, node);
+		}
+
+		/**
+		 * Upper bound: every node still pending, ignoring the pruning to come
+		 */
+		@Override
+		public long estimateSize() {
+			long estimate = 0;
+			for (IntervalNode<V> node : stack) {
+				estimate += 1 + (node == stopAfter ? 0 : size(node.right));
+			}
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | SORTED | NONNULL;
+		}
+
+		@Override
+		public Comparator<? super Interval<V>> getComparator() {
+			return comparator;
+		}
+	}
+
+	/**
+	 * Search the tree for the matching element, or the 'nearest' one.
+	 */
+	public Interval<V> searchNearestElement(Interval<V> element) {
+		return searchNearestElement(element, SearchNearest.SEARCH_NEAREST_ABSOLUTE);
+	}
+
+	/**
+	 * Search the tree for the matching element, or the 'nearest' one.
+	 */
+	public Interval<V> searchNearestElement(Interval<V> element, SearchNearest nearestOption) {
+		IntervalNode<V> found = searchNearest(element, nearestOption);
+		if (found != null)
+			return found.object;
+		return null;
+	}
+
+	/**
+	 * Controls the results for searchNearest()
+	 */
+	public static enum SearchNearest {
+		SEARCH_NEAREST_ROUNDED_DOWN, // If result not found, always chose the lower element
+		SEARCH_NEAREST_ABSOLUTE,     // If result not found, chose the nearest based on comparison
+		SEARCH_NEAREST_ROUNDED_UP    // If result not found, always chose the higher element
+	}
+
+	/**
+	 * Search the tree for the matching element, or the 'nearest' node.
+	 */
+	protected IntervalNode<V> searchNearest(Interval<V> element, SearchNearest option) {
+		if (element == null)
+			return null;
+		IntervalNode<V> x = root;
+		if (x == null)
+			return null;
+		IntervalNode<V> previous = x;
+		int compare = 0;
+		while (x != null) {
+			previous = x;
 			compare = comparator.compare(element, x.object);
 			if (0 == compare) {
 				return x; // comparator.compare should check for further
@@ -1222,4 +2751,113 @@ public class IntervalTree<V extends Comparable<V>> implements SortedSet<Interval
 		return Math.abs(otherCompare) < compare ? x : previous;
 
 	}
+
+	/**
+	 * Find the k elements closest to point, nearest first. The distance is 0 for an element
+	 * containing point (end points included) and the metric distance to the nearer end otherwise;
+	 * ties go to the element first in tree order. Best first search: subtrees are expanded in
+	 * order of a lower bound on their distance (from max, and the lower end point of the ancestor
+	 * they hang right of) until the bound can't beat the k-th best so far.
+	 *
+	 * @throws IllegalStateException if the tree was built without a Metric
+	 */
+	public List<Interval<V>> nearest(V point, int k) {
+		if (metric == null)
+			throw new IllegalStateException("nearest() needs a tree built with a Metric");
+		if (k <= 0 || root == null)
+			return new ArrayList<Interval<V>>();
+
+		// Worst result on top, so it is the one to drop
+		final Comparator<Nearest<V>> byDistance = new Comparator<Nearest<V>>() {
+			@Override
+			public int compare(Nearest<V> o1, Nearest<V> o2) {
+				int comp = Double.compare(o1.distance, o2.distance);
+				if (comp == 0) {
+					comp = comparator.compare(o1.node.object, o2.node.object);
+				}
+				return comp;
+			}
+		};
+		PriorityQueue<Nearest<V>> best = new PriorityQueue<Nearest<V>>(k + 1,
+				Collections.reverseOrder(byDistance));
+		PriorityQueue<Nearest<V>> pending = new PriorityQueue<Nearest<V>>(11,
+				new Comparator<Nearest<V>>() {
+					@Override
+					public int compare(Nearest<V> o1, Nearest<V> o2) {
+						return Double.compare(o1.distance, o2.distance);
+					}
+				});
+		pending.add(new Nearest<V>(root, null, subtreeDistance(point, root, null)));
+
+		while (!pending.isEmpty()) {
+			Nearest<V> subtree = pending.poll();
+			if (best.size() == k && subtree.distance > best.peek().distance)
+				break; // Nothing left can get in
+
+			IntervalNode<V> node = subtree.node;
+			Nearest<V> candidate = new Nearest<V>(node, null, distance(point, node.object));
+			if (best.size() < k) {
+				best.add(candidate);
+			} else if (byDistance.compare(candidate, best.peek()) < 0) {
+				best.poll();
+				best.add(candidate);
+			}
+
+			if (node.left != null) {
+				pending.add(new Nearest<V>(node.left, subtree.lowBound,
+						subtreeDistance(point, node.left, subtree.lowBound)));
+			}
+			if (node.right != null) {
+				V lowBound = node.object.getLower();
+				pending.add(new Nearest<V>(node.right, lowBound,
+						subtreeDistance(point, node.right, lowBound)));
+			}
+		}
+
+		List<Nearest<V>> sorted = new ArrayList<Nearest<V>>(best);
+		Collections.sort(sorted, byDistance);
+		List<Interval<V>> found = new ArrayList<Interval<V>>(sorted.size());
+		for (Nearest<V> nearest : sorted) {
+			found.add(nearest.node.object);
+		}
+		return found;
+	}
+
+	/**
+	 * Distance from point to the element; 0 if the element contains it
+	 */
+	private double distance(V point, Interval<V> element) {
+		if (point.compareTo(element.getLower()) < 0)
+			return metric.distance(point, element.getLower());
+		if (point.compareTo(element.getUpper()) > 0)
+			return metric.distance(element.getUpper(), point);
+		return 0;
+	}
+
+	/**
+	 * Lower bound on the distance from point to anything in the subtree: every element ends at or
+	 * before node.max, and starts at or after lowBound (if known)
+	 */
+	private double subtreeDistance(V point, IntervalNode<V> node, V lowBound) {
+		if (point.compareTo(node.max) > 0)
+			return metric.distance(node.max, point);
+		if (lowBound != null && point.compareTo(lowBound) < 0)
+			return metric.distance(point, lowBound);
+		return 0;
+	}
+
+	/**
+	 * A subtree waiting to be searched, or a found element, with its distance
+	 */
+	private static class Nearest<V extends Comparable<V>> {
+		final IntervalNode<V> node;
+		final V lowBound;
+		final double distance;
+
+		Nearest(IntervalNode<V> node, V lowBound, double distance) {
+			this.node = node;
+			this.lowBound = lowBound;
+			this.distance = distance;
+		}
+	}
 }
@@ -51,4 +51,11 @@ public class LongInterval implements Interval<Long> {
 			return value;
 		}
 	};
+
+	static final Metric<Long> metric = new Metric<Long>() {
+		@Override
+		public double distance(Long from, Long to) {
+			return Math.abs((double) to - (double) from);
+		}
+	};
 }
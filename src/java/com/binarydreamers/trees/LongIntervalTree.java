@@ -0,0 +1,149 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.Arrays;
+
+/**
+ * An interval tree specialized for primitive long ranges. Same AVL layout as {@link IntervalTree},
+ * but each node keeps its low, high and max as plain longs so that descents and max updates
+ * never box or go through Comparable. The nodes are laid out one after another in a single long[],
+ * five longs each:
+ *
+ *   0: low
+ *   1: high
+ *   2: max
+ *   3: left << 32 | right
+ *   4: parent << 32 | balance
+ *
+ * so a node is one run of memory, where ArrayIntervalTree spreads the same fields over parallel
+ * arrays. Intervals are ordered by low, then by high.
+ */
+public class LongIntervalTree extends AbstractLongIntervalTree {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final int LOW = 0;
+	private static final int HIGH = 1;
+	private static final int MAX = 2;
+	private static final int CHILDREN = 3;
+	private static final int PARENT = 4;
+	static final int NODE_LONGS = 5;
+	static final int MAX_CAPACITY = (Integer.MAX_VALUE - 8) / NODE_LONGS;
+
+	private static final long LOWER_HALF = 0xFFFFFFFFL;
+
+	private long[] slots = new long[DEFAULT_CAPACITY * NODE_LONGS];
+
+	public LongIntervalTree() {
+	}
+
+	@Override
+	int left(int node) {
+		return (int) (slots[node * NODE_LONGS + CHILDREN] >> 32);
+	}
+
+	@Override
+	void left(int node, int value) {
+		int i = node * NODE_LONGS + CHILDREN;
+		slots[i] = (long) value << 32 | (slots[i] & LOWER_HALF);
+	}
+
+	@Override
+	int right(int node) {
+		return (int) slots[node * NODE_LONGS + CHILDREN];
+	}
+
+	@Override
+	void right(int node, int value) {
+		int i = node * NODE_LONGS + CHILDREN;
+		slots[i] = (slots[i] & ~LOWER_HALF) | (value & LOWER_HALF);
+	}
+
+	@Override
+	int parent(int node) {
+		return (int) (slots[node * NODE_LONGS + PARENT] >> 32);
+	}
+
+	@Override
+	void parent(int node, int value) {
+		int i = node * NODE_LONGS + PARENT;
+		slots[i] = (long) value << 32 | (slots[i] & LOWER_HALF);
+	}
+
+	@Override
+	int balance(int node) {
+		return (int) slots[node * NODE_LONGS + PARENT];
+	}
+
+	@Override
+	void balance(int node, int value) {
+		int i = node * NODE_LONGS + PARENT;
+		slots[i] = (slots[i] & ~LOWER_HALF) | (value & LOWER_HALF);
+	}
+
+	@Override
+	long low(int node) {
+		return slots[node * NODE_LONGS + LOW];
+	}
+
+	@Override
+	long high(int node) {
+		return slots[node * NODE_LONGS + HIGH];
+	}
+
+	@Override
+	long max(int node) {
+		return slots[node * NODE_LONGS + MAX];
+	}
+
+	@Override
+	void max(int node, long value) {
+		slots[node * NODE_LONGS + MAX] = value;
+	}
+
+	@Override
+	void init(int node, long low, long high, int parent) {
+		int i = node * NODE_LONGS;
+		slots[i + LOW] = low;
+		slots[i + HIGH] = high;
+		slots[i + MAX] = high; // Initial value is always ourself.
+		slots[i + CHILDREN] = (long) NIL << 32 | (NIL & LOWER_HALF);
+		slots[i + PARENT] = (long) parent << 32; // balance 0
+	}
+
+	@Override
+	int capacity() {
+		return slots.length / NODE_LONGS;
+	}
+
+	@Override
+	void grow() {
+		int nodes = capacity();
+		if (nodes == MAX_CAPACITY)
+			throw new IllegalStateException("LongIntervalTree is full");
+		nodes = (int) Math.min((long) nodes + (nodes >> 1) + 1, MAX_CAPACITY);
+		slots = Arrays.copyOf(slots, nodes * NODE_LONGS);
+	}
+
+	/**
+	 * Drop every interval and shrink back to the starting size.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		slots = new long[DEFAULT_CAPACITY * NODE_LONGS];
+	}
+}
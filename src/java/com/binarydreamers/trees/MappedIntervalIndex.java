@@ -0,0 +1,380 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+/**
+ * A read-only long interval index that is queried straight out of a memory mapped file.
+ *
+ * write() lays the intervals out sorted by low, then high, as fixed 24 byte records behind a
+ * 32 byte header:
+ *
+ *  header: magic int, version int, count long, 16 reserved bytes
+ *  record: low long, high long, max long
+ *
+ * The records form an implicit balanced tree: the node for the index range [lo, hi) is the record
+ * at (lo + hi) / 2, and its max is the largest high in that range. open() maps the file and
+ * searches walk those ranges directly from the mapped pages, so nothing is deserialized.
+ * All values are big endian.
+ */
+public class MappedIntervalIndex implements Closeable {
+	static final int MAGIC = 0x49565431; // "IVT1"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 24;
+
+	private static final int LOW = 0;
+	private static final int HIGH = 8;
+	private static final int MAX = 16;
+
+	// Records staged per write() call; 2730 records is just under 64KB.
+	private static final int WRITE_BUFFER_RECORDS = (64 * 1024) / RECORD_SIZE;
+
+	// Records per mapped region; keeps every region under the 2GB mapping limit.
+	private static final int REGION_SHIFT = 26;
+	private static final int REGION_RECORDS = 1 << REGION_SHIFT;
+	private static final int REGION_MASK = REGION_RECORDS - 1;
+
+	private FileChannel channel;
+	private MappedByteBuffer[] regions;
+	private final long count;
+
+	private MappedIntervalIndex(FileChannel channel, MappedByteBuffer[] regions, long count) {
+		this.channel = channel;
+		this.regions = regions;
+		this.count = count;
+	}
+
+	/**
+	 * Serialize the intervals into the index format. They must already be sorted by low, then
+	 * high (i.e. the iteration order of an IntervalTree<Long>); duplicates are dropped. The index
+	 * is written to a temporary file next to file and then moved over it, so a reader never maps
+	 * a half written index.
+	 */
+	public static void write(Collection<? extends Interval<Long>> intervals, Path file)
+			throws IOException {
+		long[] lows = new long[intervals.size()];
+		long[] highs = new long[intervals.size()];
+		int size = 0;
+		for (Interval<Long> interval : intervals) {
+			long low = interval.getLower();
+			long high = interval.getUpper();
+			if (size > 0) {
+				long lastLow = lows[size - 1];
+				long lastHigh = highs[size - 1];
+				if (low < lastLow || (low == lastLow && high < lastHigh)) {
+					throw new IllegalArgumentException("Intervals are not sorted; " + interval
+							+ " follows [" + lastLow + ", " + lastHigh + "]");
+				}
+				if (low == lastLow && high == lastHigh) {
+					continue;
+				}
+			}
+			lows[size] = low;
+			highs[size] = high;
+			size++;
+		}
+		long[] maxes = new long[size];
+		calculateMax(lows, highs, maxes, 0, size);
+
+		Path temp = file.resolveSibling("." + file.getFileName() + "."
+				+ Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+		boolean moved = false;
+		try {
+			try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE
+						+ WRITE_BUFFER_RECORDS * RECORD_SIZE);
+				buffer.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(0).putLong(0);
+				for (int i = 0; i < size; i++) {
+					if (buffer.remaining() < RECORD_SIZE) {
+						drain(out, buffer);
+					}
+					buffer.putLong(lows[i]).putLong(highs[i]).putLong(maxes[i]);
+				}
+				drain(out, buffer);
+				out.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Fill in the max of every implicit node in [lo, hi); returns the max of the range.
+	 */
+	private static long calculateMax(long[] lows, long[] highs, long[] maxes, int lo, int hi) {
+		if (lo >= hi)
+			return Long.MIN_VALUE;
+		int mid = (lo + hi) >>> 1;
+		long max = highs[mid];
+		max = Math.max(max, calculateMax(lows, highs, maxes, lo, mid));
+		max = Math.max(max, calculateMax(lows, highs, maxes, mid + 1, hi));
+		maxes[mid] = max;
+		return max;
+	}
+
+	/**
+	 * Map an index file written by write().
+	 */
+	public static MappedIntervalIndex open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0)
+					throw new IOException(file + ": truncated header");
+			}
+			header.flip();
+			if (header.getInt() != MAGIC)
+				throw new IOException(file + ": not an interval index");
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new IOException(file + ": unsupported version " + version);
+			long count = header.getLong();
+			if (count < 0 || channel.size() != HEADER_SIZE + count * RECORD_SIZE)
+				throw new IOException(file + ": size does not match " + count + " records");
+
+			int regionCount = (int) ((count + REGION_RECORDS - 1) >>> REGION_SHIFT);
+			MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+			for (int r = 0; r < regionCount; r++) {
+				long first = (long) r << REGION_SHIFT;
+				long records = Math.min(REGION_RECORDS, count - first);
+				regions[r] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE,
+						records * RECORD_SIZE);
+			}
+			return new MappedIntervalIndex(channel, regions, count);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		} catch (RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Unmap the index; like every MappedByteBuffer the pages go away once the buffers are
+	 * collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		regions = null;
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	public long size() {
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	private ByteBuffer region(long index) {
+		if (regions == null)
+			throw new IllegalStateException("MappedIntervalIndex has been closed");
+		return regions[(int) (index >>> REGION_SHIFT)];
+	}
+
+	private static int offset(long index) {
+		return ((int) index & REGION_MASK) * RECORD_SIZE;
+	}
+
+	private long low(long index) {
+		return region(index).getLong(offset(index) + LOW);
+	}
+
+	private long high(long index) {
+		return region(index).getLong(offset(index) + HIGH);
+	}
+
+	private long max(long index) {
+		return region(index).getLong(offset(index) + MAX);
+	}
+
+	/**
+	 * Return the interval stored at the given sorted position
+	 */
+	public LongInterval get(long index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		return new LongInterval(low(index), high(index));
+	}
+
+	/**
+	 * Test to see if the interval [lower, upper] is stored in the index
+	 */
+	public boolean contains(long lower, long upper) {
+		return search(lower, upper) >= 0;
+	}
+
+	/**
+	 * Binary search for [lower, upper]; same contract as Arrays.binarySearch
+	 */
+	private long search(long lower, long upper) {
+		long lo = 0;
+		long hi = count - 1;
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long midLow = low(mid);
+			int compare;
+			if (midLow != lower) {
+				compare = midLow < lower ? -1 : 1;
+			} else {
+				long midHigh = high(mid);
+				compare = midHigh == upper ? 0 : (midHigh < upper ? -1 : 1);
+			}
+			if (compare < 0) {
+				lo = mid + 1;
+			} else if (compare > 0) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(lo + 1);
+	}
+
+	/**
+	 * Search the index for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<LongInterval> searchInterval(Interval<Long> interval) {
+		return searchInterval(interval.getLower(), interval.getUpper());
+	}
+
+	/**
+	 * Search the index for any elements in the interval [lower, upper]
+	 */
+	public List<LongInterval> searchInterval(long lower, long upper) {
+		List<LongInterval> found = new ArrayList<LongInterval>();
+		searchIntervalRecursive(lower, upper, 0, count, found);
+		return found;
+	}
+
+	private void searchIntervalRecursive(long lower, long upper, long lo, long hi,
+			List<LongInterval> storage) {
+		if (lo >= hi)
+			return;
+		long node = (lo + hi) >>> 1;
+
+		// If the node's max interval is less than the low interval, no children will match
+		if (max(node) < lower)
+			return;
+
+		// left children
+		searchIntervalRecursive(lower, upper, lo, node, storage);
+
+		long nodeLow = low(node);
+		long nodeHigh = high(node);
+		if (lower < nodeHigh && nodeLow < upper) {
+			storage.add(new LongInterval(nodeLow, nodeHigh));
+		}
+
+		// if interval.high is to the left of the start of Node's interval, then no children to the
+		// right will match (short cut)
+		if (upper < nodeLow) {
+			return;
+		}
+
+		searchIntervalRecursive(lower, upper, node + 1, hi, storage);
+	}
+
+	/**
+	 * Search the index for the matching element, or the 'nearest' one.
+	 */
+	public LongInterval searchNearestElement(Interval<Long> element) {
+		return searchNearestElement(element, SearchNearest.SEARCH_NEAREST_ABSOLUTE);
+	}
+
+	/**
+	 * Search the index for the matching element, or the 'nearest' one. Nearest compares the
+	 * distance between lows first, then between highs.
+	 */
+	public LongInterval searchNearestElement(Interval<Long> element, SearchNearest nearestOption) {
+		if (element == null || count == 0)
+			return null;
+		long lower = element.getLower();
+		long upper = element.getUpper();
+		long found = search(lower, upper);
+		if (found < 0) {
+			long insertion = -(found + 1);
+			long below = insertion - 1;
+			long above = insertion < count ? insertion : -1;
+			if (nearestOption == SearchNearest.SEARCH_NEAREST_ROUNDED_UP) {
+				found = above;
+			} else if (nearestOption == SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN) {
+				found = below;
+			} else if (below < 0) {
+				found = above;
+			} else if (above < 0) {
+				found = below;
+			} else {
+				// Distances can pass Long.MAX_VALUE; compare them unsigned so extreme values
+				// can't wrap
+				long belowLow = distance(low(below), lower) + Long.MIN_VALUE;
+				long aboveLow = distance(low(above), lower) + Long.MIN_VALUE;
+				if (belowLow != aboveLow) {
+					found = belowLow < aboveLow ? below : above;
+				} else {
+					found = distance(high(below), upper) + Long.MIN_VALUE
+							<= distance(high(above), upper) + Long.MIN_VALUE ? below : above;
+				}
+			}
+		}
+		return found >= 0 ? get(found) : null;
+	}
+
+	/**
+	 * |a - b| as an unsigned long
+	 */
+	private static long distance(long a, long b) {
+		return a < b ? b - a : a - b;
+	}
+}
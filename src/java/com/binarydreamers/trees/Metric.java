@@ -0,0 +1,24 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+/**
+ * Distance between two points of an interval's domain; must be >= 0, 0 for equal points, and
+ * agree with the natural ordering (a <= b <= c implies distance(a, b) <= distance(a, c)).
+ */
+public interface Metric<T extends Comparable<T>> {
+	double distance(T from, T to);
+}
@@ -0,0 +1,193 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A long interval tree whose nodes live outside the Java heap, in chunks of direct ByteBuffers.
+ * Same handle based layout and AVL logic as {@link ArrayIntervalTree}; every node is a fixed
+ * 40 byte record:
+ *
+ *   0: left    int
+ *   4: right   int
+ *   8: parent  int
+ *  12: balance byte (+3 padding)
+ *  16: low     long
+ *  24: high    long
+ *  32: max     long
+ *
+ * Chunks hold 2^16 nodes (2.5MB) each, so the tree can grow past the 2GB limit of a single buffer,
+ * up to MAX_CHUNKS chunks (just under 2^31 nodes).
+ *
+ * The chunks count against the JVM's direct memory limit, -XX:MaxDirectMemorySize (by default the
+ * same as -Xmx), not against the heap; past it a new chunk fails with OutOfMemoryError. close()
+ * drops the chunks, but the memory is handed back only once the buffers are collected; there is
+ * no portable way to free a direct buffer eagerly on the JDKs we build for. A program that builds
+ * and closes many trees should leave MaxDirectMemorySize room for the ones not yet collected.
+ * Not thread safe.
+ */
+public class OffHeapIntervalTree extends AbstractLongIntervalTree implements Closeable {
+	private static final int LEFT = 0;
+	private static final int RIGHT = 4;
+	private static final int PARENT = 8;
+	private static final int BALANCE = 12;
+	private static final int LOW = 16;
+	private static final int HIGH = 24;
+	private static final int MAX = 32;
+	static final int NODE_SIZE = 40;
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_NODES - 1;
+	// One short of 2^(31 - CHUNK_SHIFT), so capacity and every handle stay below 2^31
+	static final int MAX_CHUNKS = (1 << (31 - CHUNK_SHIFT)) - 1;
+
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	private int capacity;         // Nodes we have backing memory for
+
+	public OffHeapIntervalTree() {
+	}
+
+	// Raw node accessors; a handle is (chunk << CHUNK_SHIFT) | slot.
+	private ByteBuffer chunk(int node) {
+		return chunks[node >>> CHUNK_SHIFT];
+	}
+
+	private static int offset(int node) {
+		return (node & CHUNK_MASK) * NODE_SIZE;
+	}
+
+	@Override
+	int left(int node) {
+		return chunk(node).getInt(offset(node) + LEFT);
+	}
+
+	@Override
+	void left(int node, int value) {
+		chunk(node).putInt(offset(node) + LEFT, value);
+	}
+
+	@Override
+	int right(int node) {
+		return chunk(node).getInt(offset(node) + RIGHT);
+	}
+
+	@Override
+	void right(int node, int value) {
+		chunk(node).putInt(offset(node) + RIGHT, value);
+	}
+
+	@Override
+	int parent(int node) {
+		return chunk(node).getInt(offset(node) + PARENT);
+	}
+
+	@Override
+	void parent(int node, int value) {
+		chunk(node).putInt(offset(node) + PARENT, value);
+	}
+
+	@Override
+	int balance(int node) {
+		return chunk(node).get(offset(node) + BALANCE);
+	}
+
+	@Override
+	void balance(int node, int value) {
+		chunk(node).put(offset(node) + BALANCE, (byte) value);
+	}
+
+	@Override
+	long low(int node) {
+		return chunk(node).getLong(offset(node) + LOW);
+	}
+
+	@Override
+	long high(int node) {
+		return chunk(node).getLong(offset(node) + HIGH);
+	}
+
+	@Override
+	long max(int node) {
+		return chunk(node).getLong(offset(node) + MAX);
+	}
+
+	@Override
+	void max(int node, long value) {
+		chunk(node).putLong(offset(node) + MAX, value);
+	}
+
+	@Override
+	void init(int node, long lo, long hi, int parentNode) {
+		ByteBuffer chunk = chunk(node);
+		int offset = offset(node);
+		chunk.putInt(offset + LEFT, NIL);
+		chunk.putInt(offset + RIGHT, NIL);
+		chunk.putInt(offset + PARENT, parentNode);
+		chunk.put(offset + BALANCE, (byte) 0);
+		chunk.putLong(offset + LOW, lo);
+		chunk.putLong(offset + HIGH, hi);
+		chunk.putLong(offset + MAX, hi); // Initial value is always ourself.
+	}
+
+	@Override
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Map in another chunk
+	 */
+	@Override
+	void grow() {
+		if (chunks.length == MAX_CHUNKS)
+			throw new IllegalStateException("OffHeapIntervalTree is full");
+		chunks = Arrays.copyOf(chunks, chunks.length + 1);
+		chunks[chunks.length - 1] = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_SIZE)
+				.order(ByteOrder.nativeOrder());
+		capacity += CHUNK_NODES;
+	}
+
+	@Override
+	void ensureOpen() {
+		if (chunks == null)
+			throw new IllegalStateException("OffHeapIntervalTree has been closed");
+	}
+
+	/**
+	 * Release the backing chunks; the tree can't be used afterwards. The direct memory goes back
+	 * when the chunks are garbage collected, not here.
+	 */
+	@Override
+	public void close() {
+		if (chunks == null)
+			return;
+		clear();
+		chunks = null;
+		capacity = 0;
+	}
+
+	/**
+	 * Bytes of off-heap memory currently reserved by this tree.
+	 */
+	public long reservedBytes() {
+		return (long) capacity * NODE_SIZE;
+	}
+}
@@ -0,0 +1,317 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * An immutable interval tree. add() and remove() leave this tree alone and return a new one that
+ * shares every node off the changed path, so an update copies O(log n) nodes and a reader holding
+ * an older tree keeps a consistent snapshot with no locking and no copying. Publish new versions
+ * through a volatile field or an AtomicReference; all node fields are final, so a reader that
+ * sees a tree sees all of it.
+ *
+ * Height balanced (AVL) like IntervalTree, with max kept on every node the same way.
+ */
+public class PersistentIntervalTree<V extends Comparable<V>> implements Iterable<Interval<V>> {
+	private final Node<V> root;
+	private final Comparator<Interval<V>> comparator;
+
+	PersistentIntervalTree(Comparator<Interval<V>> comparator) {
+		this(null, comparator);
+	}
+
+	private PersistentIntervalTree(Node<V> root, Comparator<Interval<V>> comparator) {
+		this.root = root;
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Snapshot the contents of tree in O(n); later changes to the tree are not reflected.
+	 */
+	public static <V extends Comparable<V>> PersistentIntervalTree<V> from(IntervalTree<V> tree) {
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Interval<V>[] sorted = tree.toArray(new Interval[tree.size()]);
+		return new PersistentIntervalTree<V>(build(sorted, 0, sorted.length), tree.comparator());
+	}
+
+	private static <V extends Comparable<V>> Node<V> build(Interval<V>[] sorted, int lo, int hi) {
+		if (lo >= hi)
+			return null;
+		int mid = (lo + hi) >>> 1;
+		return new Node<V>(sorted[mid], build(sorted, lo, mid), build(sorted, mid + 1, hi));
+	}
+
+	public int size() {
+		return size(root);
+	}
+
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	public Comparator<Interval<V>> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * A tree with element added; this tree if it is already there.
+	 */
+	public PersistentIntervalTree<V> add(Interval<V> element) {
+		Node<V> added = add(root, element);
+		return added == root ? this : new PersistentIntervalTree<V>(added, comparator);
+	}
+
+	private Node<V> add(Node<V> node, Interval<V> element) {
+		if (node == null)
+			return new Node<V>(element, null, null);
+		int compare = comparator.compare(element, node.object);
+		if (compare == 0)
+			return node;
+		if (compare < 0) {
+			Node<V> left = add(node.left, element);
+			return left == node.left ? node : balance(node.object, left, node.right);
+		}
+		Node<V> right = add(node.right, element);
+		return right == node.right ? node : balance(node.object, node.left, right);
+	}
+
+	/**
+	 * A tree without element; this tree if it isn't there.
+	 */
+	public PersistentIntervalTree<V> remove(Interval<V> element) {
+		Node<V> removed = remove(root, element);
+		return removed == root ? this : new PersistentIntervalTree<V>(removed, comparator);
+	}
+
+	private Node<V> remove(Node<V> node, Interval<V> element) {
+		if (node == null)
+			return null;
+		int compare = comparator.compare(element, node.object);
+		if (compare < 0) {
+			Node<V> left = remove(node.left, element);
+			return left == node.left ? node : balance(node.object, left, node.right);
+		} else if (compare > 0) {
+			Node<V> right = remove(node.right, element);
+			return right == node.right ? node : balance(node.object, node.left, right);
+		}
+		if (node.left == null)
+			return node.right;
+		if (node.right == null)
+			return node.left;
+		// Take the successor's place, then remove the successor from the right side
+		Node<V> successor = node.right;
+		while (successor.left != null) {
+			successor = successor.left;
+		}
+		return balance(successor.object, node.left, removeMinimum(node.right));
+	}
+
+	private Node<V> removeMinimum(Node<V> node) {
+		if (node.left == null)
+			return node.right;
+		return balance(node.object, removeMinimum(node.left), node.right);
+	}
+
+	/**
+	 * New node for object over left and right, rotated if their heights differ by two
+	 */
+	private static <V extends Comparable<V>> Node<V> balance(Interval<V> object, Node<V> left,
+			Node<V> right) {
+		int balance = height(right) - height(left);
+		if (balance > 1) {
+			if (height(right.left) > height(right.right)) {
+				// Double (Right/Left) rotation
+				Node<V> grandchild = right.left;
+				return new Node<V>(grandchild.object, new Node<V>(object, left, grandchild.left),
+						new Node<V>(right.object, grandchild.right, right.right));
+			}
+			return new Node<V>(right.object, new Node<V>(object, left, right.left), right.right);
+		} else if (balance < -1) {
+			if (height(left.right) > height(left.left)) {
+				// Double (Left/Right) rotation
+				Node<V> grandchild = left.right;
+				return new Node<V>(grandchild.object, new Node<V>(left.object, left.left,
+						grandchild.left), new Node<V>(object, grandchild.right, right));
+			}
+			return new Node<V>(left.object, left.left, new Node<V>(object, left.right, right));
+		}
+		return new Node<V>(object, left, right);
+	}
+
+	/**
+	 * Test to see if an element is stored in the tree
+	 */
+	public boolean contains(Interval<V> element) {
+		Node<V> x = root;
+		while (x != null) {
+			int compare = comparator.compare(element, x.object);
+			if (compare == 0)
+				return true;
+			x = compare < 0 ? x.left : x.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Search the tree for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<Interval<V>> searchInterval(Interval<V> interval) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		searchIntervalRecursive(interval, root, found::add);
+		return found;
+	}
+
+	/**
+	 * Hand every element in the interval to sink, in tree order, without building a list.
+	 */
+	public void searchInterval(Interval<V> interval, Consumer<? super Interval<V>> sink) {
+		searchIntervalRecursive(interval, root, sink);
+	}
+
+	private void searchIntervalRecursive(Interval<V> interval, Node<V> node,
+			Consumer<? super Interval<V>> sink) {
+		while (node != null) {
+			// If the node's max interval is less than the low interval, no children will match
+			if (node.max.compareTo(interval.getLower()) < 0)
+				return;
+
+			searchIntervalRecursive(interval, node.left, sink);
+
+			if (interval.getLower().compareTo(node.object.getUpper()) < 0
+					&& node.object.getLower().compareTo(interval.getUpper()) < 0) {
+				sink.accept(node.object);
+			}
+
+			// Nothing to the right can start before interval.high
+			if (interval.getUpper().compareTo(node.object.getLower()) < 0)
+				return;
+
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Iterate the elements in sorted order. The tree never changes, so this never fails.
+	 */
+	@Override
+	public Iterator<Interval<V>> iterator() {
+		return new Iterator<Interval<V>>() {
+			// Nodes whose left side is done, nearest on top
+			private final ArrayDeque<Node<V>> stack = new ArrayDeque<Node<V>>();
+
+			{
+				pushLeft(root);
+			}
+
+			private void pushLeft(Node<V> node) {
+				for (; node != null; node = node.left) {
+					stack.push(node);
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public Interval<V> next() {
+				if (stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<V> node = stack.pop();
+				pushLeft(node.right);
+				return node.object;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("PersistentIntervalTree is immutable");
+			}
+		};
+	}
+
+	private static int height(Node<?> node) {
+		return node != null ? node.height : 0;
+	}
+
+	private static int size(Node<?> node) {
+		return node != null ? node.size : 0;
+	}
+
+	/**
+	 * Check heights, balance, max and order; throws IllegalStateException on the first problem
+	 */
+	protected void verify() {
+		verify(root, null);
+	}
+
+	private Interval<V> verify(Node<V> node, Interval<V> last) {
+		if (node == null)
+			return last;
+		last = verify(node.left, last);
+		if (last != null && comparator.compare(last, node.object) >= 0) {
+			throw new IllegalStateException("Order is off; last:" + last + " now:" + node.object);
+		}
+		int balance = height(node.right) - height(node.left);
+		if (balance < -1 || balance > 1) {
+			throw new IllegalStateException("Balance off at " + node.object + ": " + balance);
+		}
+		V max = node.object.getUpper();
+		if (node.left != null && node.left.max.compareTo(max) > 0)
+			max = node.left.max;
+		if (node.right != null && node.right.max.compareTo(max) > 0)
+			max = node.right.max;
+		if (node.max.compareTo(max) != 0) {
+			throw new IllegalStateException("Max off; is:" + node.max + " should:" + max);
+		}
+		return verify(node.right, node.object);
+	}
+
+	/**
+	 * An immutable node; every field is computed from the children at construction
+	 */
+	private static final class Node<V extends Comparable<V>> {
+		final Interval<V> object;
+		final Node<V> left;
+		final Node<V> right;
+		final V max;
+		final int height;
+		final int size;
+
+		Node(Interval<V> object, Node<V> left, Node<V> right) {
+			this.object = object;
+			this.left = left;
+			this.right = right;
+			V max = object.getUpper();
+			if (left != null && left.max.compareTo(max) > 0)
+				max = left.max;
+			if (right != null && right.max.compareTo(max) > 0)
+				max = right.max;
+			this.max = max;
+			this.height = Math.max(height(left), height(right)) + 1;
+			this.size = size(left) + size(right) + 1;
+		}
+	}
+}
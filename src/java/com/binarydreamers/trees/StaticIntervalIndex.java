@@ -0,0 +1,230 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable interval index for read-only data, stored in implicit BFS (Eytzinger) order.
+ *
+ * Slot k (1-based) has its children at 2k and 2k+1, so a descent is plain index arithmetic with
+ * no node objects or pointers, and the top levels of the tree share the first few cache lines.
+ * A parallel array keeps the max upper bound of every implicit subtree, like IntervalNode.max.
+ */
+public class StaticIntervalIndex<V extends Comparable<V>> implements Iterable<Interval<V>> {
+	// Slots run to count and the descent goes one level past them, to 2 * count + 1
+	static final int MAX_SIZE = (Integer.MAX_VALUE - 1) / 2;
+
+	private final Interval<V>[] elements; // 1-based, BFS order; slot 0 unused
+	private final V[] max;                // max upper bound of the subtree at each slot
+	private final int count;
+	private final Comparator<Interval<V>> comparator;
+
+	private StaticIntervalIndex(Interval<V>[] sorted, int size, Comparator<Interval<V>> comparator) {
+		if (size > MAX_SIZE) {
+			throw new IllegalArgumentException("Too many elements for an index: " + size);
+		}
+		this.comparator = comparator;
+		this.count = size;
+		this.elements = newIntervalArray(size + 1);
+		this.max = newBoundArray(size + 1);
+		fill(sorted, 1, 0);
+
+		// Children always sit at higher slots, so a reverse sweep sees them first
+		for (int k = size; k >= 1; k--) {
+			V m = elements[k].getUpper();
+			int child = 2 * k;
+			if (child <= size && max[child].compareTo(m) > 0) {
+				m = max[child];
+			}
+			child++;
+			if (child <= size && max[child].compareTo(m) > 0) {
+				m = max[child];
+			}
+			max[k] = m;
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <V extends Comparable<V>> Interval<V>[] newIntervalArray(int size) {
+		return new Interval[size];
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <V extends Comparable<V>> V[] newBoundArray(int size) {
+		return (V[]) new Comparable[size];
+	}
+
+	/**
+	 * In-order walk of the implicit tree, handing out the sorted elements; returns the next
+	 * unused sorted position.
+	 */
+	private int fill(Interval<V>[] sorted, int k, int i) {
+		if (k > count)
+			return i;
+		i = fill(sorted, 2 * k, i);
+		elements[k] = sorted[i++];
+		return fill(sorted, 2 * k + 1, i);
+	}
+
+	/**
+	 * Snapshot the contents of the tree; later changes to the tree are not reflected.
+	 */
+	public static <V extends Comparable<V>> StaticIntervalIndex<V> from(IntervalTree<V> tree) {
+		Interval<V>[] sorted = tree.toArray(StaticIntervalIndex.<V> newIntervalArray(tree.size()));
+		return new StaticIntervalIndex<V>(sorted, sorted.length, tree.comparator());
+	}
+
+	/**
+	 * Build an index from elements already sorted by comparator. Duplicates are dropped.
+	 *
+	 * @throws IllegalArgumentException if the elements are not sorted, or there are more than
+	 *         MAX_SIZE of them
+	 */
+	public static <V extends Comparable<V>> StaticIntervalIndex<V> fromSorted(
+			Collection<? extends Interval<V>> sorted, Comparator<Interval<V>> comparator) {
+		Interval<V>[] array = sorted.toArray(StaticIntervalIndex.<V> newIntervalArray(
+				sorted.size()));
+		int size = 0;
+		for (int i = 0; i < array.length; i++) {
+			if (size > 0) {
+				int compare = comparator.compare(array[size - 1], array[i]);
+				if (compare > 0)
+					throw new IllegalArgumentException("Elements are not sorted by the comparator");
+				if (compare == 0)
+					continue;
+			}
+			array[size++] = array[i];
+		}
+		return new StaticIntervalIndex<V>(array, size, comparator);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public Comparator<Interval<V>> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Slot of the first element >= element, or 0 if there is none. The loop always runs to a
+	 * leaf, so the only branch is the loop test; the answer is the last slot where we went left.
+	 */
+	private int lowerBound(Interval<V> element) {
+		int k = 1;
+		while (k <= count) {
+			k = 2 * k + (comparator.compare(elements[k], element) < 0 ? 1 : 0);
+		}
+		// Strip the trailing run of right turns (1 bits) plus the final left turn
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+	}
+
+	/**
+	 * Test to see if an element is stored in the index
+	 */
+	public boolean contains(Interval<V> element) {
+		if (element == null) return false;
+		int k = lowerBound(element);
+		return k != 0 && comparator.compare(elements[k], element) == 0;
+	}
+
+	/**
+	 * Search the index for any elements in the interval; same matching rules as
+	 * IntervalTree.searchInterval().
+	 */
+	public List<Interval<V>> searchInterval(Interval<V> interval) {
+		List<Interval<V>> found = new ArrayList<Interval<V>>();
+		searchIntervalRecursive(interval, 1, found);
+		return found;
+	}
+
+	private void searchIntervalRecursive(Interval<V> interval, int k, List<Interval<V>> storage) {
+		if (k > count)
+			return;
+
+		// If the node's max interval is less than the low interval, no children will match
+		if (max[k].compareTo(interval.getLower()) < 0)
+			return;
+
+		searchIntervalRecursive(interval, 2 * k, storage);
+
+		Interval<V> element = elements[k];
+		if (interval.getLower().compareTo(element.getUpper()) < 0
+				&& element.getLower().compareTo(interval.getUpper()) < 0) {
+			storage.add(element);
+		}
+
+		// if interval.high is to the left of the start of this element, then no children to the
+		// right will match (short cut)
+		if (interval.getUpper().compareTo(element.getLower()) < 0) {
+			return;
+		}
+
+		searchIntervalRecursive(interval, 2 * k + 1, storage);
+	}
+
+	/**
+	 * Iterate the elements in sorted order
+	 */
+	@Override
+	public Iterator<Interval<V>> iterator() {
+		return new Iterator<Interval<V>>() {
+			int current = count > 0 ? leftmost(1) : 0;
+
+			@Override
+			public boolean hasNext() {
+				return current != 0;
+			}
+
+			@Override
+			public Interval<V> next() {
+				if (current == 0) {
+					throw new NoSuchElementException();
+				}
+				Interval<V> element = elements[current];
+				if (2 * current + 1 <= count) {
+					current = leftmost(2 * current + 1);
+				} else {
+					// Climb while we are a right child, then once more
+					current >>>= Integer.numberOfTrailingZeros(~current) + 1;
+				}
+				return element;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("StaticIntervalIndex is immutable");
+			}
+		};
+	}
+
+	private int leftmost(int k) {
+		while (2 * k <= count) {
+			k = 2 * k;
+		}
+		return k;
+	}
+}
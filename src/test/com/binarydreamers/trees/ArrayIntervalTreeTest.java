@@ -0,0 +1,101 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+public class ArrayIntervalTreeTest {
+	@Test
+	public void testRotations() {
+		ArrayIntervalTree testTree = new ArrayIntervalTree(1);
+		testTree.add(10, 100);
+		testTree.add(200, 300);
+		testTree.add(15, 150);
+		testTree.add(5, 50);
+		testTree.add(1, 20);
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(5, testTree.size());
+		assertFalse(testTree.add(15, 150));
+		assertTrue(testTree.contains(1, 20));
+	}
+
+	@Test
+	public void testMatchesLongIntervalTree() {
+		ArrayIntervalTree testTree = new ArrayIntervalTree();
+		LongIntervalTree reference = new LongIntervalTree();
+		Random rand = new Random(424242);
+		long[][] added = new long[3000][];
+		for (int i = 0; i < added.length; i++) {
+			long low = rand.nextInt(10000);
+			long high = low + rand.nextInt(500);
+			added[i] = new long[] { low, high };
+			assertEquals(reference.add(low, high), testTree.add(low, high));
+		}
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+
+		// Remove half, then re-add so freed handles get reused
+		for (int i = 0; i < added.length; i += 2) {
+			assertEquals(reference.remove(added[i][0], added[i][1]),
+					testTree.remove(added[i][0], added[i][1]));
+			testTree.verifyHeight();
+		}
+		testTree.verifyOrder();
+		for (int i = 0; i < added.length; i += 4) {
+			assertEquals(reference.add(added[i][0], added[i][1]),
+					testTree.add(added[i][0], added[i][1]));
+		}
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(reference.size(), testTree.size());
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			long high = low + rand.nextInt(1000);
+			List<LongInterval> expected = reference.searchInterval(low, high);
+			List<LongInterval> found = testTree.searchInterval(low, high);
+			assertEquals(expected.size(), found.size());
+			for (int j = 0; j < found.size(); j++) {
+				assertEquals(expected.get(j).low, found.get(j).low);
+				assertEquals(expected.get(j).high, found.get(j).high);
+			}
+			assertEquals(reference.searchNearest(low).low, testTree.searchNearest(low).low);
+			assertEquals(reference.searchNearest(low, SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN).high,
+					testTree.searchNearest(low, SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN).high);
+		}
+	}
+
+	@Test
+	public void testClear() {
+		ArrayIntervalTree testTree = new ArrayIntervalTree();
+		testTree.add(1, 2);
+		testTree.add(3, 4);
+		testTree.clear();
+		assertTrue(testTree.isEmpty());
+		assertFalse(testTree.contains(1, 2));
+		assertTrue(testTree.searchInterval(0, 10).isEmpty());
+		testTree.add(5, 6);
+		assertEquals(1, testTree.searchInterval(0, 10).size());
+	}
+}
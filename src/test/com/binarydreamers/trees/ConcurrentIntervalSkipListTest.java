@@ -0,0 +1,176 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentIntervalSkipListTest {
+	@Test
+	public void testMatchesTree() {
+		ConcurrentIntervalSkipList<Long> testList = new ConcurrentIntervalSkipList<Long>(
+				LongInterval.comparator);
+		IntervalTree<Long> reference = new IntervalTree<Long>(LongInterval.comparator);
+		assertTrue(testList.isEmpty());
+		assertNull(testList.first());
+		assertNull(testList.last());
+		Random rand = new Random(424242);
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + rand.nextInt(500));
+			assertEquals(reference.add(interval), testList.add(interval));
+		}
+		testList.verify();
+		assertEquals(reference.size(), testList.size());
+		assertArrayEquals(reference.toArray(), testList.toArray());
+		assertSame(reference.first(), testList.first());
+		assertSame(reference.last(), testList.last());
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(reference.searchInterval(search), testList.searchInterval(search));
+			assertEquals(reference.contains(search), testList.contains(search));
+		}
+
+		Object[] all = reference.toArray();
+		for (int i = 0; i < all.length; i += 2) {
+			assertTrue(testList.remove(all[i]));
+			assertFalse(testList.contains(all[i]));
+			assertFalse(testList.remove(all[i]));
+			reference.remove(all[i]);
+		}
+		testList.verify();
+		assertArrayEquals(reference.toArray(), testList.toArray());
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(reference.searchInterval(search), testList.searchInterval(search));
+		}
+		testList.clear();
+		assertTrue(testList.isEmpty());
+		assertEquals(0, testList.size());
+	}
+
+	@Test
+	public void testSubSet() {
+		ConcurrentIntervalSkipList<Long> testList = new ConcurrentIntervalSkipList<Long>(
+				LongInterval.comparator);
+		for (long low = 0; low < 100; low += 10) {
+			testList.add(new LongInterval(low, low + 5));
+		}
+		SortedSet<Interval<Long>> sub = testList.subSet(new LongInterval(20, 0), new LongInterval(50, 0));
+		assertEquals(3, sub.size());
+		assertEquals(20, sub.first().getLower().longValue());
+		assertEquals(40, sub.last().getLower().longValue());
+		assertFalse(sub.contains(new LongInterval(50, 55)));
+		SortedSet<Interval<Long>> head = sub.headSet(new LongInterval(40, 0));
+		assertEquals(2, head.size());
+		assertEquals(30, head.last().getLower().longValue());
+		try {
+			sub.add(new LongInterval(60, 61));
+			fail("Out of range add should have failed with IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// Views are live both ways
+		assertTrue(sub.add(new LongInterval(35, 36)));
+		assertTrue(testList.contains(new LongInterval(35, 36)));
+		testList.remove(new LongInterval(20, 25));
+		assertEquals(3, sub.size());
+		assertEquals(7, testList.tailSet(new LongInterval(31, 0)).size());
+		assertEquals(2, testList.headSet(new LongInterval(30, 35)).size());
+	}
+
+	@Test
+	public void testConcurrentAddRemove() throws InterruptedException {
+		final ConcurrentIntervalSkipList<Long> testList = new ConcurrentIntervalSkipList<Long>(
+				LongInterval.comparator);
+		// Odd lows stay put for the readers to find; writers churn the even ones
+		final List<LongInterval> pinned = new ArrayList<LongInterval>();
+		for (long low = 1; low < 20000; low += 20) {
+			LongInterval interval = new LongInterval(low, low + 5);
+			pinned.add(interval);
+			testList.add(interval);
+		}
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final int seed = t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					Random rand = new Random(seed);
+					for (int i = 0; i < 5000; i++) {
+						long low = rand.nextInt(10000) * 2;
+						LongInterval interval = new LongInterval(low, low + rand.nextInt(50));
+						if (!testList.add(interval)) {
+							testList.remove(interval);
+						}
+					}
+				}
+			});
+		}
+		for (int t = 0; t < 4; t++) {
+			final int seed = 100 + t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						Random rand = new Random(seed);
+						for (int i = 0; i < 5000; i++) {
+							LongInterval interval = pinned.get(rand.nextInt(pinned.size()));
+							assertTrue(testList.contains(interval));
+							assertTrue(testList.searchInterval(interval).contains(interval));
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		// Quiet now: everything must line up exactly
+		testList.verify();
+		IntervalTree<Long> reference = new IntervalTree<Long>(LongInterval.comparator);
+		for (Interval<Long> interval : testList) {
+			assertTrue(reference.add(interval));
+		}
+		assertEquals(reference.size(), testList.size());
+		Random rand = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(20000);
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(reference.searchInterval(search), testList.searchInterval(search));
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+public class ConcurrentIntervalTreeTest {
+	@Test
+	public void testMatchesTree() {
+		ConcurrentIntervalTree<Long> testTree = new ConcurrentIntervalTree<Long>(
+				LongInterval.comparator);
+		IntervalTree<Long> reference = new IntervalTree<Long>(LongInterval.comparator);
+		assertTrue(testTree.isEmpty());
+		Random rand = new Random(424242);
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + rand.nextInt(500));
+			assertEquals(reference.add(interval), testTree.add(interval));
+		}
+		assertEquals(reference.size(), testTree.size());
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(reference.searchInterval(search), testTree.searchInterval(search));
+			assertEquals(reference.contains(search), testTree.contains(search));
+			for (SearchNearest option : SearchNearest.values()) {
+				assertSame(reference.searchNearestElement(search, option),
+						testTree.searchNearestElement(search, option));
+			}
+		}
+		for (Interval<Long> interval : reference) {
+			assertTrue(testTree.contains(interval));
+			assertTrue(testTree.remove(interval));
+			assertFalse(testTree.contains(interval));
+		}
+		assertTrue(testTree.isEmpty());
+		assertNull(testTree.searchNearestElement(new LongInterval(1, 2)));
+	}
+
+	@Test
+	public void testConcurrentReadersAndWriters() throws InterruptedException {
+		final ConcurrentIntervalTree<Long> testTree = new ConcurrentIntervalTree<Long>(
+				LongInterval.comparator);
+		// Odd lows stay put for the readers to find; writers churn the even ones
+		final List<LongInterval> pinned = new ArrayList<LongInterval>();
+		for (long low = 1; low < 20000; low += 20) {
+			LongInterval interval = new LongInterval(low, low + 5);
+			pinned.add(interval);
+			testTree.add(interval);
+		}
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 2; t++) {
+			final int seed = t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					Random rand = new Random(seed);
+					for (int i = 0; i < 20000; i++) {
+						long low = rand.nextInt(10000) * 2;
+						LongInterval interval = new LongInterval(low, low + rand.nextInt(50));
+						if (!testTree.add(interval)) {
+							testTree.remove(interval);
+						}
+					}
+				}
+			});
+		}
+		for (int t = 0; t < 4; t++) {
+			final int seed = 100 + t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						Random rand = new Random(seed);
+						for (int i = 0; i < 20000; i++) {
+							LongInterval interval = pinned.get(rand.nextInt(pinned.size()));
+							assertTrue(testTree.contains(interval));
+							assertTrue(testTree.searchInterval(interval).contains(interval));
+							assertSame(interval, testTree.searchNearestElement(interval));
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+	}
+}
@@ -17,11 +17,23 @@ package com.binarydreamers.trees;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import org.junit.Test;
 
@@ -29,6 +41,7 @@ import com.binarydreamers.trees.IntegerInterval;
 import com.binarydreamers.trees.Interval;
 import com.binarydreamers.trees.IntervalTree;
 import com.binarydreamers.trees.LongInterval;
+import com.binarydreamers.trees.IntervalTree.MaxDepth;
 import com.binarydreamers.trees.IntervalTree.SearchNearest;
 
 public class IntervalTreeTest {
@@ -335,6 +348,750 @@ public class IntervalTreeTest {
 		assertEquals(3, searchInterval.size());
 	}
 
+	@Test
+	public void testIntervalSearchVisitor() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(
+				LongInterval.comparator);
+		testTree.addAll(Arrays.asList(generateLongIntervalArray(100)));
+
+		LongInterval search = new LongInterval(1000, 1350);
+		final List<Interval<Long>> visited = new ArrayList<Interval<Long>>();
+		testTree.searchInterval(search, visited::add);
+		assertEquals(testTree.searchInterval(search), visited);
+		assertTrue(visited.size() > 3);
+
+		final List<Interval<Long>> firstTwo = new ArrayList<Interval<Long>>();
+		assertFalse(testTree.searchIntervalWhile(search, element -> {
+			firstTwo.add(element);
+			return firstTwo.size() < 2;
+		}));
+		assertEquals(visited.subList(0, 2), firstTwo);
+		assertTrue(testTree.searchIntervalWhile(search, element -> true));
+	}
+
+	@Test
+	public void testOverlapIterator() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(
+				LongInterval.comparator);
+		testTree.addAll(Arrays.asList(generateLongIntervalArray(100)));
+
+		for (long low = -200; low < 6000; low += 175) {
+			LongInterval search = new LongInterval(low, low + 350);
+			List<Interval<Long>> iterated = new ArrayList<Interval<Long>>();
+			Iterator<Interval<Long>> it = testTree.overlapIterator(search);
+			while (it.hasNext()) {
+				iterated.add(it.next());
+			}
+			assertEquals(testTree.searchInterval(search), iterated);
+			try {
+				it.next();
+				fail("Exhausted iterator should have failed with NoSuchElementException");
+			} catch (NoSuchElementException e) {
+			}
+		}
+
+		Iterator<Interval<Long>> it = testTree.overlapIterator(new LongInterval(1000, 1350));
+		assertTrue(it.hasNext());
+		it.next();
+		testTree.add(new LongInterval(1001, 1002));
+		try {
+			it.next();
+			fail("Should have gotten a ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+		}
+	}
+
+	@Test
+	public void testStab() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(
+				LongInterval.comparator);
+		LongInterval[] intervals = generateLongIntervalArray(100);
+		testTree.addAll(Arrays.asList(intervals));
+		testTree.add(new LongInterval(700, 700));
+
+		for (long point = -50; point < 6000; point += 25) {
+			List<Interval<Long>> expected = new ArrayList<Interval<Long>>();
+			for (Interval<Long> element : testTree) {
+				if (element.getLower() <= point && point <= element.getUpper()) {
+					expected.add(element);
+				}
+			}
+			assertEquals(expected, testTree.stab(point));
+		}
+
+		// End points count, and degenerate intervals are found
+		List<Interval<Long>> found = testTree.stab(700L);
+		assertTrue(found.contains(intervals[14])); // [700, 1200]
+		assertTrue(found.contains(intervals[13])); // [650, 1050]
+		assertTrue(testTree.contains(new LongInterval(700, 700)));
+		assertEquals(new Long(700), found.get(found.size() - 2).getLower());
+	}
+
+	@Test
+	public void testRankAndSelect() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(
+				LongInterval.comparator);
+		LongInterval[] intervals = generateLongIntervalArray(200);
+		// Insert out of order so rotations have to keep the sizes right
+		for (int i = 0; i < intervals.length; i += 2) {
+			testTree.add(intervals[i]);
+		}
+		for (int i = intervals.length - 1; i > 0; i -= 2) {
+			testTree.add(intervals[i]);
+		}
+		testTree.verifyHeight();
+		for (int i = 0; i < intervals.length; i++) {
+			assertEquals(i, testTree.rank(intervals[i]));
+			assertSame(intervals[i], testTree.select(i));
+		}
+		assertEquals(0, testTree.rank(new LongInterval(-1, 0)));
+		assertEquals(1, testTree.rank(new LongInterval(0, 101)));
+		assertEquals(200, testTree.rank(new LongInterval(100000, 100001)));
+		try {
+			testTree.select(200);
+			fail("select past the end should have failed with IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+		}
+
+		Random rand = new Random(424242);
+		List<LongInterval> remaining = new ArrayList<LongInterval>(Arrays.asList(intervals));
+		while (remaining.size() > 100) {
+			testTree.remove(remaining.remove(rand.nextInt(remaining.size())));
+			testTree.verifyHeight();
+		}
+		for (int i = 0; i < remaining.size(); i++) {
+			assertEquals(i, testTree.rank(remaining.get(i)));
+			assertSame(remaining.get(i), testTree.select(i));
+		}
+	}
+
+	@Test
+	public void testSubsetSize() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(
+				LongInterval.comparator);
+		LongInterval[] intervals = generateLongIntervalArray(100);
+		testTree.addAll(Arrays.asList(intervals));
+		assertEquals(10, testTree.headSet(intervals[10]).size());
+		assertEquals(90, testTree.tailSet(intervals[10]).size());
+		assertEquals(30, testTree.subSet(intervals[10], intervals[40]).size());
+		assertEquals(0, testTree.subSet(intervals[40], intervals[10]).size());
+		assertTrue(testTree.subSet(intervals[40], intervals[40]).isEmpty());
+		assertFalse(testTree.headSet(intervals[1]).isEmpty());
+		// Bounds that are not in the tree
+		assertEquals(10, testTree.headSet(new LongInterval(500, 501)).size());
+		assertEquals(11, testTree.headSet(new LongInterval(500, 700)).size());
+		testTree.remove(intervals[20]);
+		assertEquals(29, testTree.subSet(intervals[10], intervals[40]).size());
+	}
+
+	@Test
+	public void testCountOverlapping() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		try {
+			testTree.countOverlapping(new LongInterval(0, 100));
+			fail("countOverlapping() without the depth index should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		testTree.enableDepthIndex();
+		assertEquals(0, testTree.countOverlapping(new LongInterval(0, 100)));
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + rand.nextInt(500));
+			if (testTree.add(interval)) {
+				added.add(interval);
+			}
+		}
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 200; i++) {
+				long low = rand.nextInt(11000) - 500;
+				LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+				assertEquals(testTree.searchInterval(search).size(), testTree.countOverlapping(search));
+			}
+			// The end point index has to follow adds and removes
+			for (int i = 0; i < 100; i++) {
+				testTree.remove(added.remove(rand.nextInt(added.size())));
+				long low = rand.nextInt(10000);
+				LongInterval interval = new LongInterval(low, low + rand.nextInt(500));
+				if (testTree.add(interval)) {
+					added.add(interval);
+				}
+			}
+		}
+
+		// Empty search intervals still match what searchInterval() finds; clear() and a bulk
+		// addAll() keep the index
+		testTree.clear();
+		assertTrue(testTree.isDepthIndexEnabled());
+		testTree.addAll(Arrays.asList(new LongInterval(100, 500), new LongInterval(200, 200),
+				new LongInterval(200, 300)));
+		assertEquals(2, testTree.countOverlapping(new LongInterval(250, 250)));
+		assertEquals(1, testTree.countOverlapping(new LongInterval(200, 200)));
+		assertEquals(3, testTree.countOverlapping(new LongInterval(150, 250)));
+		assertEquals(1, testTree.countOverlapping(new LongInterval(300, 400)));
+		assertEquals(0, testTree.countOverlapping(new LongInterval(500, 600)));
+	}
+
+	@Test
+	public void testSearchIntervals() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(10000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(500)));
+		}
+		List<LongInterval> queries = new ArrayList<LongInterval>();
+		for (int i = 0; i < 500; i++) {
+			long low = rand.nextInt(11000) - 500;
+			queries.add(new LongInterval(low, low + rand.nextInt(1000)));
+		}
+		final List<List<Interval<Long>>> found = new ArrayList<List<Interval<Long>>>();
+		for (int i = 0; i < queries.size(); i++) {
+			found.add(new ArrayList<Interval<Long>>());
+		}
+		testTree.searchIntervals(queries, (index, interval) -> found.get(index).add(interval));
+		for (int i = 0; i < queries.size(); i++) {
+			assertEquals(testTree.searchInterval(queries.get(i)), found.get(i));
+		}
+
+		testTree.clear();
+		testTree.searchIntervals(queries, (index, interval) -> fail("Empty tree matched"));
+	}
+
+	@Test
+	public void testSearchIntervalsParallel() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		for (int i = 0; i < 20000; i++) {
+			long low = rand.nextInt(100000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(500)));
+		}
+		List<LongInterval> queries = new ArrayList<LongInterval>();
+		for (int i = 0; i < 10000; i++) {
+			long low = rand.nextInt(101000) - 500;
+			queries.add(new LongInterval(low, low + rand.nextInt(1000)));
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<List<Interval<Long>>> found = testTree.searchIntervalsParallel(queries, pool);
+			assertEquals(queries.size(), found.size());
+			for (int i = 0; i < queries.size(); i++) {
+				assertEquals(testTree.searchInterval(queries.get(i)), found.get(i));
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(testTree.searchInterval(queries.get(0)),
+				testTree.searchIntervalsParallel(queries.subList(0, 1)).get(0));
+		assertTrue(testTree.searchIntervalsParallel(new ArrayList<LongInterval>()).isEmpty());
+	}
+
+	@Test
+	public void testSpliterator() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(10000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(500)));
+		}
+		Spliterator<Interval<Long>> spliterator = testTree.spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.SIZED
+				| Spliterator.SUBSIZED | Spliterator.DISTINCT));
+		assertEquals(testTree.size(), spliterator.estimateSize());
+		Spliterator<Interval<Long>> prefix = spliterator.trySplit();
+		assertEquals(500, prefix.estimateSize());
+		assertEquals(500, spliterator.estimateSize());
+
+		assertEquals(Arrays.asList(testTree.toArray()), splitAll(testTree.spliterator()));
+		assertEquals(Arrays.asList(testTree.toArray()),
+				testTree.parallelStream().collect(Collectors.toList()));
+
+		Interval<Long> from = testTree.select(100);
+		Interval<Long> to = testTree.select(400);
+		SortedSet<Interval<Long>> subSet = testTree.subSet(from, to);
+		assertEquals(300, subSet.spliterator().estimateSize());
+		assertSame(from, subSet.first());
+		assertTrue(subSet.contains(from));
+		assertFalse(subSet.contains(to));
+		assertEquals(Arrays.asList(subSet.toArray()), splitAll(subSet.spliterator()));
+		assertEquals(Arrays.asList(subSet.toArray()),
+				subSet.parallelStream().collect(Collectors.toList()));
+		assertEquals(0, testTree.subSet(to, from).spliterator().estimateSize());
+
+		for (int i = 0; i < 100; i++) {
+			long low = rand.nextInt(11000) - 500;
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(testTree.searchInterval(search), splitAll(testTree.overlapSpliterator(search)));
+			assertEquals(testTree.searchInterval(search),
+					StreamSupport.stream(testTree.overlapSpliterator(search), true)
+							.collect(Collectors.toList()));
+		}
+
+		testTree.clear();
+		assertNull(testTree.spliterator().trySplit());
+		assertEquals(0, testTree.stream().count());
+		assertNull(testTree.overlapSpliterator(new LongInterval(0, 100)).trySplit());
+	}
+
+	/**
+	 * Split as far as the spliterator allows, then drain the pieces in order
+	 */
+	private static <T> List<T> splitAll(Spliterator<T> spliterator) {
+		List<T> found = new ArrayList<T>();
+		Spliterator<T> prefix = spliterator.trySplit();
+		if (prefix != null) {
+			found.addAll(splitAll(prefix));
+			found.addAll(splitAll(spliterator));
+		} else {
+			spliterator.forEachRemaining(found::add);
+		}
+		return found;
+	}
+
+	@Test
+	public void testNearest() {
+		final IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator,
+				LongInterval.metric);
+		assertTrue(testTree.nearest(10L, 3).isEmpty());
+		Random rand = new Random(424242);
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(100000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(50)));
+		}
+		List<Interval<Long>> all = new ArrayList<Interval<Long>>(testTree);
+		for (int i = 0; i < 100; i++) {
+			final long point = rand.nextInt(110000) - 5000;
+			int k = 1 + rand.nextInt(20);
+			// Scan and sort; sort is stable, so ties stay in tree order
+			List<Interval<Long>> expected = new ArrayList<Interval<Long>>(all);
+			Collections.sort(expected, new Comparator<Interval<Long>>() {
+				@Override
+				public int compare(Interval<Long> o1, Interval<Long> o2) {
+					return Long.compare(gap(o1, point), gap(o2, point));
+				}
+			});
+			assertEquals(expected.subList(0, k), testTree.nearest(point, k));
+		}
+		assertEquals(all.size(), testTree.nearest(5L, 5000).size());
+		assertTrue(testTree.nearest(5L, 0).isEmpty());
+
+		try {
+			new IntervalTree<Long>(LongInterval.comparator).nearest(5L, 1);
+			fail("nearest() without a metric should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	private static long gap(Interval<Long> interval, long point) {
+		if (point < interval.getLower())
+			return interval.getLower() - point;
+		if (point > interval.getUpper())
+			return point - interval.getUpper();
+		return 0;
+	}
+
+	@Test
+	public void testContainment() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + rand.nextInt(1000));
+			if (testTree.add(interval)) {
+				added.add(interval);
+			}
+		}
+		// Removes have to keep minUpper right too
+		for (int i = 0; i < 500; i++) {
+			testTree.remove(added.remove(rand.nextInt(added.size())));
+		}
+		testTree.verifyHeight();
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(11000) - 500;
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			List<Interval<Long>> containing = new ArrayList<Interval<Long>>();
+			List<Interval<Long>> containedIn = new ArrayList<Interval<Long>>();
+			for (Interval<Long> interval : testTree) {
+				if (interval.getLower() <= search.low && search.high <= interval.getUpper())
+					containing.add(interval);
+				if (search.low <= interval.getLower() && interval.getUpper() <= search.high)
+					containedIn.add(interval);
+			}
+			assertEquals(containing, testTree.searchContaining(search));
+			assertEquals(containedIn, testTree.searchContainedIn(search));
+		}
+
+		testTree.clear();
+		testTree.add(new LongInterval(100, 500));
+		testTree.add(new LongInterval(200, 300));
+		testTree.add(new LongInterval(300, 1000));
+		assertEquals(2, testTree.searchContaining(new LongInterval(200, 300)).size());
+		assertEquals(1, testTree.searchContainedIn(new LongInterval(200, 300)).size());
+		assertEquals(3, testTree.searchContainedIn(new LongInterval(100, 1000)).size());
+		assertTrue(testTree.searchContaining(new LongInterval(0, 1000)).isEmpty());
+	}
+
+	@Test
+	public void testOverlapsAny() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		assertFalse(testTree.overlapsAny(new LongInterval(0, 100)));
+		Random rand = new Random(424242);
+		for (int i = 0; i < 500; i++) {
+			long low = rand.nextInt(100000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(100)));
+		}
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(101000) - 500;
+			LongInterval search = new LongInterval(low, low + rand.nextInt(300));
+			List<Interval<Long>> expected = testTree.searchInterval(search);
+			Interval<Long> found = testTree.findAnyOverlap(search);
+			assertEquals(!expected.isEmpty(), testTree.overlapsAny(search));
+			if (expected.isEmpty()) {
+				assertNull(found);
+			} else {
+				assertTrue(expected.contains(found));
+			}
+		}
+		testTree.clear();
+		testTree.add(new LongInterval(100, 200));
+		assertFalse(testTree.overlapsAny(new LongInterval(200, 300)));
+		assertFalse(testTree.overlapsAny(new LongInterval(0, 100)));
+		assertTrue(testTree.overlapsAny(new LongInterval(199, 300)));
+	}
+
+	@Test
+	public void testOverlapJoin() {
+		IntervalTree<Long> events = new IntervalTree<Long>(LongInterval.comparator);
+		IntervalTree<Long> windows = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(100000);
+			events.add(new LongInterval(low, low + rand.nextInt(100)));
+		}
+		for (int i = 0; i < 300; i++) {
+			long low = rand.nextInt(100000);
+			windows.add(new LongInterval(low, low + rand.nextInt(2000)));
+		}
+		windows.add(new LongInterval(50000, 50000)); // empty intervals never overlap
+
+		Set<String> expected = new HashSet<String>();
+		for (Interval<Long> event : events) {
+			for (Interval<Long> window : windows.searchInterval(event)) {
+				expected.add(event + " " + window);
+			}
+		}
+		final List<String> found = new ArrayList<String>();
+		IntervalTree.overlapJoin(events, windows, (a, b) -> found.add(a + " " + b));
+		assertEquals(expected.size(), found.size());
+		assertEquals(expected, new HashSet<String>(found));
+
+		final Set<String> parallel = Collections.synchronizedSet(new HashSet<String>());
+		final AtomicInteger pairs = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			IntervalTree.overlapJoinParallel(events, windows, (a, b) -> {
+				parallel.add(a + " " + b);
+				pairs.incrementAndGet();
+			}, pool);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(expected.size(), pairs.get());
+		assertEquals(expected, parallel);
+
+		IntervalTree.overlapJoin(events, new IntervalTree<Long>(LongInterval.comparator),
+				(a, b) -> fail("Nothing to join against"));
+	}
+
+	@Test
+	public void testUnionAndGaps() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator,
+				LongInterval.metric);
+		testTree.add(new LongInterval(100, 200));
+		testTree.add(new LongInterval(150, 300));
+		testTree.add(new LongInterval(300, 400)); // touching, merges
+		testTree.add(new LongInterval(500, 500)); // empty, covers nothing
+		testTree.add(new LongInterval(600, 700));
+		testTree.add(new LongInterval(650, 660));
+
+		final List<String> pieces = new ArrayList<String>();
+		testTree.union((lower, upper) -> pieces.add(lower + "-" + upper));
+		assertEquals(Arrays.asList("100-400", "600-700"), pieces);
+		assertEquals(400, testTree.coveredLength(), 0);
+
+		pieces.clear();
+		LongInterval range = new LongInterval(250, 650);
+		testTree.union(range, (lower, upper) -> pieces.add(lower + "-" + upper));
+		assertEquals(Arrays.asList("250-400", "600-650"), pieces);
+		assertEquals(200, testTree.coveredLength(range), 0);
+
+		pieces.clear();
+		testTree.gaps(range, (lower, upper) -> pieces.add(lower + "-" + upper));
+		assertEquals(Arrays.asList("400-600"), pieces);
+		pieces.clear();
+		testTree.gaps(new LongInterval(0, 1000), (lower, upper) -> pieces.add(lower + "-" + upper));
+		assertEquals(Arrays.asList("0-100", "400-600", "700-1000"), pieces);
+		pieces.clear();
+		testTree.gaps(new LongInterval(120, 380), (lower, upper) -> pieces.add(lower + "-" + upper));
+		assertTrue(pieces.isEmpty());
+
+		// Against a brute force bitmap
+		testTree.clear();
+		Random rand = new Random(424242);
+		boolean[] covered = new boolean[11000];
+		for (int i = 0; i < 300; i++) {
+			int low = rand.nextInt(10000);
+			int high = low + rand.nextInt(100);
+			testTree.add(new LongInterval(low, high));
+			Arrays.fill(covered, low, high, true);
+		}
+		for (int i = 0; i < 100; i++) {
+			int low = rand.nextInt(10500);
+			int high = low + rand.nextInt(500);
+			int expected = 0;
+			for (int x = low; x < high; x++) {
+				expected += covered[x] ? 1 : 0;
+			}
+			LongInterval search = new LongInterval(low, high);
+			assertEquals(expected, testTree.coveredLength(search), 0);
+			final long[] gaps = new long[1];
+			testTree.gaps(search, (lower, upper) -> gaps[0] += upper - lower);
+			assertEquals(high - low - expected, gaps[0]);
+		}
+
+		try {
+			new IntervalTree<Long>(LongInterval.comparator).coveredLength();
+			fail("coveredLength() without a metric should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testMaxDepth() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		try {
+			testTree.maxDepth(new LongInterval(0, 100));
+			fail("maxDepth() without the depth index should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		testTree.enableDepthIndex();
+		MaxDepth<Long> depth = testTree.maxDepth(new LongInterval(0, 100));
+		assertEquals(0, depth.getDepth());
+		assertEquals(Long.valueOf(0), depth.getPoint());
+
+		testTree.add(new LongInterval(100, 200));
+		testTree.add(new LongInterval(150, 300));
+		testTree.add(new LongInterval(200, 400)); // (100, 200) has ended by 200
+		testTree.add(new LongInterval(250, 260));
+		depth = testTree.maxDepth(new LongInterval(0, 1000));
+		assertEquals(3, depth.getDepth());
+		assertEquals(Long.valueOf(250), depth.getPoint());
+		depth = testTree.maxDepth(new LongInterval(160, 250));
+		assertEquals(2, depth.getDepth());
+		assertEquals(Long.valueOf(160), depth.getPoint());
+		assertEquals(1, testTree.maxDepth(new LongInterval(350, 350)).getDepth());
+
+		// Against a brute force count, while the index follows adds and removes
+		testTree.clear();
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		for (int round = 0; round < 4; round++) {
+			for (int i = 0; i < 200; i++) {
+				long low = rand.nextInt(2000);
+				LongInterval interval = new LongInterval(low, low + rand.nextInt(200));
+				if (testTree.add(interval)) {
+					added.add(interval);
+				}
+			}
+			for (int i = 0; i < 50; i++) {
+				testTree.remove(added.remove(rand.nextInt(added.size())));
+			}
+			int[] active = new int[2600];
+			for (LongInterval interval : added) {
+				for (long x = interval.low; x < interval.high; x++) {
+					active[(int) x]++;
+				}
+			}
+			for (int i = 0; i < 50; i++) {
+				int low = rand.nextInt(2200);
+				int high = low + 1 + rand.nextInt(300);
+				int expected = 0;
+				int at = low;
+				for (int x = low; x < high; x++) {
+					if (active[x] > expected) {
+						expected = active[x];
+						at = x;
+					}
+				}
+				depth = testTree.maxDepth(new LongInterval(low, high));
+				assertEquals(expected, depth.getDepth());
+				if (expected > active[low]) {
+					assertEquals(Long.valueOf(at), depth.getPoint());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFindFirstGap() {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator,
+				LongInterval.metric);
+		assertEquals(Long.valueOf(5), testTree.findFirstGap(5L, 100));
+		testTree.add(new LongInterval(100, 200));
+		testTree.add(new LongInterval(250, 300));
+		testTree.add(new LongInterval(300, 400));
+		testTree.add(new LongInterval(450, 500));
+		testTree.verifyHeight();
+		assertEquals(Long.valueOf(0), testTree.findFirstGap(0L, 100));
+		assertEquals(Long.valueOf(500), testTree.findFirstGap(0L, 101));
+		assertEquals(Long.valueOf(200), testTree.findFirstGap(100L, 50));
+		assertEquals(Long.valueOf(500), testTree.findFirstGap(100L, 51));
+		assertEquals(Long.valueOf(200), testTree.findFirstGap(150L, 10));
+		assertEquals(Long.valueOf(210), testTree.findFirstGap(210L, 40));
+		assertEquals(Long.valueOf(400), testTree.findFirstGap(210L, 41));
+		assertEquals(Long.valueOf(500), testTree.findFirstGap(460L, 1));
+		// Smallest lengths right at an element's start
+		assertEquals(Long.valueOf(200), testTree.findFirstGap(100L, 1));
+		assertEquals(Long.valueOf(200), testTree.findFirstGap(100L, 0.001));
+		for (double length : new double[] { 0, -0.0, -1, Double.NaN }) {
+			try {
+				testTree.findFirstGap(100L, length);
+				fail("findFirstGap() with length " + length
+						+ " should have failed with IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+			}
+		}
+
+		// Against a brute force scan, with overlapping elements and removes
+		testTree.clear();
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		boolean[] covered = new boolean[12000];
+		for (int i = 0; i < 400; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + 1 + rand.nextInt(60));
+			if (testTree.add(interval)) {
+				added.add(interval);
+			}
+		}
+		for (int i = 0; i < 100; i++) {
+			testTree.remove(added.remove(rand.nextInt(added.size())));
+		}
+		testTree.verifyHeight();
+		for (LongInterval interval : added) {
+			Arrays.fill(covered, (int) interval.low, (int) interval.high, true);
+		}
+		for (int i = 0; i < 200; i++) {
+			int from = rand.nextInt(10000);
+			int length = 1 + rand.nextInt(80);
+			int start = from;
+			for (int run = 0; run < length; start++) {
+				run = 0;
+				while (run < length && !covered[start + run]) {
+					run++;
+				}
+				if (run == length)
+					break;
+			}
+			assertEquals(Long.valueOf(start), testTree.findFirstGap((long) from, length));
+		}
+
+		try {
+			new IntervalTree<Long>(LongInterval.comparator).findFirstGap(0L, 10);
+			fail("findFirstGap() without a metric should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testAggregate() {
+		// Sum of lengths, plus the elements in tree order to check combine() keeps the order
+		Aggregate<Long, String> lengths = new Aggregate<Long, String>() {
+			@Override
+			public String identity() {
+				return "0:";
+			}
+
+			@Override
+			public String lift(Interval<Long> element) {
+				return (element.getUpper() - element.getLower()) + ":" + element;
+			}
+
+			@Override
+			public String combine(String left, String right) {
+				String[] l = left.split(":", 2);
+				String[] r = right.split(":", 2);
+				return (Long.parseLong(l[0]) + Long.parseLong(r[0])) + ":" + l[1] + r[1];
+			}
+		};
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator, null, lengths);
+		assertEquals("0:", testTree.aggregate(new LongInterval(0, 100), lengths));
+
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 300; i++) {
+				long low = rand.nextInt(10000);
+				LongInterval interval = new LongInterval(low, low + rand.nextInt(round == 0 ? 50 : 500));
+				if (testTree.add(interval)) {
+					added.add(interval);
+				}
+			}
+			for (int i = 0; i < 100; i++) {
+				testTree.remove(added.remove(rand.nextInt(added.size())));
+			}
+			testTree.verifyHeight();
+			for (int i = 0; i < 100; i++) {
+				long low = rand.nextInt(11000) - 500;
+				LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+				String expected = lengths.identity();
+				for (Interval<Long> interval : testTree.searchInterval(search)) {
+					expected = lengths.combine(expected, lengths.lift(interval));
+				}
+				assertEquals(expected, testTree.aggregate(search, lengths));
+			}
+		}
+
+		// Bulk built trees carry the aggregate too
+		IntervalTree<Long> bulk = new IntervalTree<Long>(LongInterval.comparator, null, lengths);
+		bulk.addAll(Arrays.asList(generateLongIntervalArray(100)));
+		bulk.verifyHeight();
+		LongInterval everything = new LongInterval(-1, 100000);
+		assertEquals(bulk.searchInterval(everything).size(), 100);
+		assertTrue(bulk.aggregate(everything, lengths).startsWith("55000:"));
+
+		try {
+			new IntervalTree<Long>(LongInterval.comparator).aggregate(everything, lengths);
+			fail("aggregate() without an Aggregate should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		// Only the tree's own Aggregate decides the result type
+		Aggregate<Long, Long> count = new Aggregate<Long, Long>() {
+			@Override
+			public Long identity() {
+				return 0L;
+			}
+
+			@Override
+			public Long lift(Interval<Long> element) {
+				return 1L;
+			}
+
+			@Override
+			public Long combine(Long left, Long right) {
+				return left + right;
+			}
+		};
+		try {
+			bulk.aggregate(everything, count);
+			fail("aggregate() with another Aggregate should have failed with IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
 	// Ran enough times to verify that all legs of the remove/rebalance worked
 	// LongInterval[] elements = generateLongIntervalArray(5000);;
 	// testTree.addAll(Arrays.asList(elements));
@@ -370,6 +1127,62 @@ public class IntervalTreeTest {
 		return elements;
 	}
 
+	@Test
+	public void testFromSorted() {
+		LongInterval[] intervals = generateLongIntervalArray(1000);
+		IntervalTree<Long> testTree = IntervalTree.fromSorted(Arrays.asList(intervals),
+				LongInterval.comparator);
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(1000, testTree.size());
+		assertArrayEquals(intervals, testTree.toArray());
+
+		IntervalTree<Long> reference = new IntervalTree<Long>(LongInterval.comparator);
+		for (LongInterval inter : intervals) {
+			reference.add(inter);
+		}
+		for (int low = 0; low < 50000; low += 777) {
+			LongInterval search = new LongInterval(low, low + 300);
+			assertEquals(reference.searchInterval(search), testTree.searchInterval(search));
+		}
+
+		// Still a regular tree afterwards
+		testTree.add(new LongInterval(25, 30));
+		testTree.remove(intervals[500]);
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(1000, testTree.size());
+
+		try {
+			IntervalTree.fromSorted(Arrays.asList(intervals[1], intervals[0]));
+			fail("Unsorted input should have failed with IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testAddAllSortedAndUnsorted() {
+		LongInterval[] intervals = generateLongIntervalArray(100);
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		// Sorted with duplicates; bulk built
+		List<LongInterval> sorted = new ArrayList<LongInterval>(Arrays.asList(intervals));
+		sorted.add(50, intervals[49]);
+		assertTrue(testTree.addAll(sorted));
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(100, testTree.size());
+		assertArrayEquals(intervals, testTree.toArray());
+
+		// Unsorted; falls back to add()
+		List<LongInterval> unsorted = new ArrayList<LongInterval>(Arrays.asList(intervals));
+		Collections.reverse(unsorted);
+		testTree.clear();
+		assertTrue(testTree.addAll(unsorted));
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertArrayEquals(intervals, testTree.toArray());
+	}
+
 	@Test
 	public void testIntegerTree() {
 		IntervalTree<Integer> testTree = new IntervalTree<Integer>(
@@ -0,0 +1,117 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+public class LongIntervalTreeTest {
+	@Test
+	public void testAddContains() {
+		LongIntervalTree testTree = new LongIntervalTree();
+		assertTrue(testTree.add(300, 1000));
+		assertTrue(testTree.add(200, 300));
+		assertTrue(testTree.add(100, 500));
+		assertFalse(testTree.add(100, 500));
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(3, testTree.size());
+		assertTrue(testTree.contains(200, 300));
+		assertFalse(testTree.contains(200, 301));
+	}
+
+	@Test
+	public void testRandomAddRemove() {
+		LongIntervalTree testTree = new LongIntervalTree();
+		IntervalTree<Long> reference = new IntervalTree<Long>();
+		Random rand = new Random(424242);
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(10000);
+			long high = low + rand.nextInt(500);
+			assertEquals(reference.add(new LongInterval(low, high)), testTree.add(low, high));
+		}
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(reference.size(), testTree.size());
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			long high = low + rand.nextInt(1000);
+			List<Interval<Long>> expected = reference.searchInterval(new LongInterval(low, high));
+			List<LongInterval> found = testTree.searchInterval(low, high);
+			assertEquals(expected.size(), found.size());
+			for (int j = 0; j < found.size(); j++) {
+				assertEquals(expected.get(j).getLower(), found.get(j).getLower());
+				assertEquals(expected.get(j).getUpper(), found.get(j).getUpper());
+			}
+		}
+
+		for (Object element : reference.toArray()) {
+			LongInterval interval = (LongInterval) element;
+			assertTrue(testTree.remove(interval.low, interval.high));
+			assertFalse(testTree.contains(interval.low, interval.high));
+			testTree.verifyHeight();
+			testTree.verifyOrder();
+		}
+		assertTrue(testTree.isEmpty());
+	}
+
+	@Test
+	public void testStab() {
+		LongIntervalTree testTree = new LongIntervalTree();
+		IntervalTree<Long> reference = new IntervalTree<Long>();
+		Random rand = new Random(424242);
+		for (int i = 0; i < 1000; i++) {
+			long low = rand.nextInt(10000);
+			long high = low + rand.nextInt(500);
+			testTree.add(low, high);
+			reference.add(new LongInterval(low, high));
+		}
+		for (long point = 0; point < 10500; point += 37) {
+			List<Interval<Long>> expected = reference.stab(point);
+			List<LongInterval> found = testTree.stab(point);
+			assertEquals(expected.size(), found.size());
+			for (int j = 0; j < found.size(); j++) {
+				assertEquals(expected.get(j).getLower().longValue(), found.get(j).low);
+				assertEquals(expected.get(j).getUpper().longValue(), found.get(j).high);
+			}
+		}
+	}
+
+	@Test
+	public void testNearestSearch() {
+		LongIntervalTree testTree = new LongIntervalTree();
+		assertNull(testTree.searchNearest(10));
+		testTree.add(300, 1000);
+		testTree.add(200, 300);
+		testTree.add(100, 500);
+		assertEquals(200, testTree.searchNearest(199).low);
+		assertEquals(200, testTree.searchNearest(201).low);
+		assertEquals(200, testTree.searchNearest(200).low);
+		assertEquals(100, testTree.searchNearest(140).low);
+		assertEquals(100, testTree.searchNearest(199, SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN).low);
+		assertEquals(200, testTree.searchNearest(101, SearchNearest.SEARCH_NEAREST_ROUNDED_UP).low);
+		assertNull(testTree.searchNearest(301, SearchNearest.SEARCH_NEAREST_ROUNDED_UP));
+		assertEquals(300, testTree.searchNearest(Long.MAX_VALUE).low);
+		assertEquals(100, testTree.searchNearest(Long.MIN_VALUE).low);
+	}
+}
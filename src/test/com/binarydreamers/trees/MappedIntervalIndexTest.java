@@ -0,0 +1,129 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.binarydreamers.trees.IntervalTree.SearchNearest;
+
+public class MappedIntervalIndexTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		for (int i = 0; i < 5000; i++) {
+			long low = rand.nextInt(100000);
+			testTree.add(new LongInterval(low, low + rand.nextInt(500)));
+		}
+
+		Path file = Files.createTempFile("intervals", ".idx");
+		try {
+			MappedIntervalIndex.write(testTree, file);
+			MappedIntervalIndex index = MappedIntervalIndex.open(file);
+			assertEquals(testTree.size(), index.size());
+			for (Interval<Long> interval : testTree) {
+				assertTrue(index.contains(interval.getLower(), interval.getUpper()));
+			}
+			for (int i = 0; i < 200; i++) {
+				long low = rand.nextInt(100000);
+				LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+				List<Interval<Long>> expected = testTree.searchInterval(search);
+				List<LongInterval> found = index.searchInterval(search);
+				assertEquals(expected.size(), found.size());
+				for (int j = 0; j < found.size(); j++) {
+					assertEquals(expected.get(j).getLower(), found.get(j).getLower());
+					assertEquals(expected.get(j).getUpper(), found.get(j).getUpper());
+				}
+			}
+			index.close();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testNearestSearch() throws IOException {
+		Path file = Files.createTempFile("intervals", ".idx");
+		try {
+			MappedIntervalIndex.write(Arrays.asList(new LongInterval(100, 500),
+					new LongInterval(200, 300), new LongInterval(300, 1000)), file);
+			MappedIntervalIndex index = MappedIntervalIndex.open(file);
+			assertEquals(new Long(200), index.searchNearestElement(new LongInterval(199, 250))
+					.getLower());
+			assertEquals(new Long(200), index.searchNearestElement(new LongInterval(201, 250))
+					.getLower());
+			assertEquals(new Long(100), index.searchNearestElement(new LongInterval(140, 250))
+					.getLower());
+			assertEquals(new Long(100), index.searchNearestElement(new LongInterval(199, 250),
+					SearchNearest.SEARCH_NEAREST_ROUNDED_DOWN).getLower());
+			assertEquals(new Long(200), index.searchNearestElement(new LongInterval(101, 250),
+					SearchNearest.SEARCH_NEAREST_ROUNDED_UP).getLower());
+			assertNull(index.searchNearestElement(new LongInterval(301, 250),
+					SearchNearest.SEARCH_NEAREST_ROUNDED_UP));
+			index.close();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testNearestSearchExtremes() throws IOException {
+		Path file = Files.createTempFile("intervals", ".idx");
+		try {
+			MappedIntervalIndex.write(Arrays.asList(new LongInterval(Long.MIN_VALUE + 1,
+					Long.MIN_VALUE + 1), new LongInterval(Long.MAX_VALUE - 10, Long.MAX_VALUE)), file);
+			MappedIntervalIndex index = MappedIntervalIndex.open(file);
+			// 0 is 2^63 - 1 from the first low and 2^63 - 10 from the second
+			assertEquals(new Long(Long.MAX_VALUE - 10), index.searchNearestElement(
+					new LongInterval(0, 0)).getLower());
+			assertEquals(new Long(Long.MIN_VALUE + 1), index.searchNearestElement(
+					new LongInterval(-6, 0)).getLower());
+			index.close();
+
+			// Equal low distances; the highs are 2^64 - 2 and 0 away
+			MappedIntervalIndex.write(Arrays.asList(new LongInterval(Long.MIN_VALUE + 1,
+					Long.MIN_VALUE + 1), new LongInterval(Long.MAX_VALUE, Long.MAX_VALUE)), file);
+			index = MappedIntervalIndex.open(file);
+			assertEquals(new Long(Long.MAX_VALUE), index.searchNearestElement(
+					new LongInterval(0, Long.MAX_VALUE)).getLower());
+			index.close();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testUnsortedInput() throws IOException {
+		Path file = Files.createTempFile("intervals", ".idx");
+		try {
+			MappedIntervalIndex.write(Arrays.asList(new LongInterval(200, 300),
+					new LongInterval(100, 500)), file);
+			fail("Unsorted input should have failed with IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OffHeapIntervalTreeTest {
+	@Test
+	public void testMatchesLongIntervalTree() {
+		OffHeapIntervalTree testTree = new OffHeapIntervalTree();
+		LongIntervalTree reference = new LongIntervalTree();
+		Random rand = new Random(424242);
+		// Enough nodes to spill into a second chunk
+		long[][] added = new long[70000][];
+		for (int i = 0; i < added.length; i++) {
+			long low = rand.nextInt(1000000);
+			long high = low + rand.nextInt(500);
+			added[i] = new long[] { low, high };
+			assertEquals(reference.add(low, high), testTree.add(low, high));
+		}
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(reference.size(), testTree.size());
+
+		for (int i = 0; i < added.length; i += 3) {
+			assertEquals(reference.remove(added[i][0], added[i][1]),
+					testTree.remove(added[i][0], added[i][1]));
+		}
+		testTree.verifyHeight();
+		testTree.verifyOrder();
+		assertEquals(reference.size(), testTree.size());
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(1000000);
+			long high = low + rand.nextInt(1000);
+			List<LongInterval> expected = reference.searchInterval(low, high);
+			List<LongInterval> found = testTree.searchInterval(low, high);
+			assertEquals(expected.size(), found.size());
+			for (int j = 0; j < found.size(); j++) {
+				assertEquals(expected.get(j).low, found.get(j).low);
+				assertEquals(expected.get(j).high, found.get(j).high);
+			}
+		}
+		testTree.close();
+	}
+
+	@Test
+	public void testClose() {
+		OffHeapIntervalTree testTree = new OffHeapIntervalTree();
+		testTree.add(1, 2);
+		assertTrue(testTree.contains(1, 2));
+		assertTrue(testTree.reservedBytes() > 0);
+		testTree.close();
+		assertEquals(0, testTree.size());
+		try {
+			testTree.add(3, 4);
+			fail("Using a closed tree should have failed with IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PersistentIntervalTreeTest {
+	@Test
+	public void testMatchesTree() {
+		PersistentIntervalTree<Long> testTree = new PersistentIntervalTree<Long>(
+				LongInterval.comparator);
+		IntervalTree<Long> reference = new IntervalTree<Long>(LongInterval.comparator);
+		Random rand = new Random(424242);
+		List<LongInterval> added = new ArrayList<LongInterval>();
+		for (int i = 0; i < 2000; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval interval = new LongInterval(low, low + rand.nextInt(500));
+			PersistentIntervalTree<Long> next = testTree.add(interval);
+			assertEquals(reference.add(interval), next != testTree);
+			if (next != testTree) {
+				added.add(interval);
+			}
+			testTree = next;
+		}
+		testTree.verify();
+		assertEquals(reference.size(), testTree.size());
+		assertEquals(Arrays.asList(reference.toArray()), toList(testTree));
+
+		for (int i = 0; i < 1000; i++) {
+			LongInterval interval = added.remove(rand.nextInt(added.size()));
+			assertTrue(testTree.contains(interval));
+			testTree = testTree.remove(interval);
+			reference.remove(interval);
+			assertFalse(testTree.contains(interval));
+		}
+		testTree.verify();
+		assertSame(testTree, testTree.remove(new LongInterval(-5, -1)));
+		assertEquals(Arrays.asList(reference.toArray()), toList(testTree));
+
+		for (int i = 0; i < 200; i++) {
+			long low = rand.nextInt(10000);
+			LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+			assertEquals(reference.searchInterval(search), testTree.searchInterval(search));
+		}
+	}
+
+	@Test
+	public void testSnapshotsAreUnchanged() {
+		IntervalTree<Long> source = new IntervalTree<Long>(LongInterval.comparator);
+		source.add(new LongInterval(100, 500));
+		source.add(new LongInterval(200, 300));
+		source.add(new LongInterval(300, 1000));
+		PersistentIntervalTree<Long> first = PersistentIntervalTree.from(source);
+		first.verify();
+		source.clear();
+		assertEquals(3, first.size());
+
+		PersistentIntervalTree<Long> second = first.add(new LongInterval(400, 450));
+		PersistentIntervalTree<Long> third = second.remove(new LongInterval(100, 500));
+		assertEquals(3, first.size());
+		assertEquals(4, second.size());
+		assertEquals(3, third.size());
+		assertFalse(first.contains(new LongInterval(400, 450)));
+		assertTrue(second.contains(new LongInterval(100, 500)));
+		assertFalse(third.contains(new LongInterval(100, 500)));
+		assertEquals(2, first.searchInterval(new LongInterval(350, 420)).size());
+		assertEquals(3, second.searchInterval(new LongInterval(350, 420)).size());
+		assertEquals(2, third.searchInterval(new LongInterval(350, 420)).size());
+
+		// Iterating an old version while making new ones is fine
+		PersistentIntervalTree<Long> latest = first;
+		for (Interval<Long> interval : first) {
+			latest = latest.remove(interval);
+		}
+		assertTrue(latest.isEmpty());
+		assertEquals(3, toList(first).size());
+	}
+
+	private static List<Interval<Long>> toList(PersistentIntervalTree<Long> tree) {
+		List<Interval<Long>> list = new ArrayList<Interval<Long>>();
+		for (Interval<Long> interval : tree) {
+			list.add(interval);
+		}
+		return list;
+	}
+}
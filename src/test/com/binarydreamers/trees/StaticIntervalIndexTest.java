@@ -0,0 +1,72 @@
+/*
+Copyright 2026 The Intervals Authors
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.binarydreamers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StaticIntervalIndexTest {
+	@Test
+	public void testMatchesTree() {
+		Random rand = new Random(424242);
+		// Odd sizes exercise the partially filled bottom level
+		for (int size : new int[] { 0, 1, 2, 3, 7, 8, 1000 }) {
+			IntervalTree<Long> testTree = new IntervalTree<Long>(LongInterval.comparator);
+			while (testTree.size() < size) {
+				long low = rand.nextInt(10000);
+				testTree.add(new LongInterval(low, low + rand.nextInt(500)));
+			}
+			StaticIntervalIndex<Long> index = StaticIntervalIndex.from(testTree);
+			assertEquals(size, index.size());
+
+			List<Interval<Long>> iterated = new ArrayList<Interval<Long>>();
+			for (Interval<Long> interval : index) {
+				iterated.add(interval);
+				assertTrue(index.contains(interval));
+			}
+			assertArrayEquals(testTree.toArray(), iterated.toArray());
+			assertFalse(index.contains(new LongInterval(20000, 20001)));
+			assertFalse(index.contains(new LongInterval(-1, 0)));
+
+			for (int i = 0; i < 100; i++) {
+				long low = rand.nextInt(10000);
+				LongInterval search = new LongInterval(low, low + rand.nextInt(1000));
+				assertEquals(testTree.searchInterval(search), index.searchInterval(search));
+			}
+		}
+	}
+
+	@Test
+	public void testFromSorted() {
+		StaticIntervalIndex<Long> index = StaticIntervalIndex.fromSorted(Arrays.asList(
+				new LongInterval(100, 500), new LongInterval(200, 300), new LongInterval(200, 300),
+				new LongInterval(300, 1000)), LongInterval.comparator);
+		assertEquals(3, index.size());
+		assertEquals(2, index.searchInterval(new LongInterval(150, 250)).size());
+		try {
+			StaticIntervalIndex.fromSorted(Arrays.asList(new LongInterval(200, 300),
+					new LongInterval(100, 500)), LongInterval.comparator);
+			fail("Unsorted input should have failed with IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}